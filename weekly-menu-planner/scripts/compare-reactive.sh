@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Сравнение Spring MVC и WebFlux (профиль reactive) на /api/generate-plan.
+# Поднимает приложение дважды и гоняет нагрузочный стенд; кроме задержек печатает пиковые RSS и число потоков
+# сервера, прирост RSS делится на число клиентов — память на соединение.
+#
+#   ./scripts/compare-reactive.sh [concurrency] [duration]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY="${1:-400}"
+DURATION="${2:-30s}"
+PORT="${PORT:-18080}"
+JAR="target/weekly-menu-planner-0.0.1-SNAPSHOT.jar"
+
+mvn -B -q -DskipTests package
+mvn -B -q -Pbenchmark test-compile
+
+for PROFILE in default reactive; do
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$PROFILE" \
+         > "target/app-$PROFILE.log" 2>&1 &
+    APP_PID=$!
+    trap 'kill $APP_PID 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/api/recipes" > /dev/null; do
+        sleep 1
+    done
+
+    mvn -B -q -Pbenchmark exec:exec@load-test -Dload.args="--url http://localhost:$PORT/api/generate-plan \
+        --concurrency $CONCURRENCY --duration $DURATION --label $PROFILE --pid $APP_PID"
+
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+done
@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Сравнение платформенных и виртуальных потоков на /api/generate-plan.
+# Поднимает приложение дважды (spring.threads.virtual.enabled=false/true) и гоняет нагрузочный стенд.
+#
+#   ./scripts/compare-virtual-threads.sh [concurrency] [duration]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY="${1:-400}"
+DURATION="${2:-30s}"
+PORT="${PORT:-18080}"
+JAR="target/weekly-menu-planner-0.0.1-SNAPSHOT.jar"
+
+mvn -B -q -DskipTests package
+mvn -B -q -Pbenchmark test-compile
+
+for VIRTUAL in false true; do
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$VIRTUAL" \
+         --spring.jpa.show-sql=false > "target/app-virtual-$VIRTUAL.log" 2>&1 &
+    APP_PID=$!
+    trap 'kill $APP_PID 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/api/recipes" > /dev/null; do
+        sleep 1
+    done
+
+    mvn -B -q -Pbenchmark exec:exec@load-test -Dload.args="--url http://localhost:$PORT/api/generate-plan \
+        --concurrency $CONCURRENCY --duration $DURATION --label virtual=$VIRTUAL"
+
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+done
@@ -0,0 +1,254 @@
+package com.planner.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный стенд для /api/generate-plan: заданное число параллельных клиентов в течение заданного времени
+ * шлют запросы без пауз. Печатает пропускную способность, перцентили задержки и число ошибок.
+ *
+ * <pre>
+ * --url          адрес (по умолчанию http://localhost:8080/api/generate-plan)
+ * --method       GET или POST (по умолчанию GET)
+ * --body         тело POST-запроса (JSON)
+ * --concurrency  число параллельных клиентов (по умолчанию 200)
+ * --duration     длительность, например 30s или 2m (по умолчанию 30s)
+ * --warmup       прогрев перед замером (по умолчанию 5s)
+ * --label        подпись строки отчёта
+ * --pid          pid сервера на этой же машине: во время замера снимаются RSS процесса и число его потоков
+ *                (/proc/&lt;pid&gt;/status), в отчёт идут пики и прирост RSS на одного клиента
+ * </pre>
+ *
+ * MVC и WebFlux сравниваются одним и тем же прогоном против приложения, запущенного без профиля и с профилем reactive.
+ */
+public final class GeneratePlanLoadTest {
+
+    private GeneratePlanLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = options.request();
+
+        System.out.printf("Warmup %s, %d clients -> %s %s%n",
+                options.warmup, options.concurrency, options.method, options.url);
+        ProcessStats idle = ProcessStats.read(options.pid);
+        run(client, request, options.concurrency, options.warmup);
+
+        ProcessStats.Sampler sampler = ProcessStats.sample(options.pid);
+        Result result = run(client, request, options.concurrency, options.duration);
+        ProcessStats peak = sampler.stop();
+        result.print(options.label, options.concurrency, options.duration);
+        if (idle != null && peak != null) {
+            System.out.printf("%-12s rss idle=%.1fMB peak=%.1fMB (+%.0fKB per client) threads idle=%d peak=%d%n",
+                    options.label, idle.rssKb / 1024.0, peak.rssKb / 1024.0,
+                    (double) (peak.rssKb - idle.rssKb) / options.concurrency, idle.threads, peak.threads);
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> perClient = new ArrayList<>(concurrency);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        recorder.record(System.nanoTime() - start);
+                    }
+                    synchronized (perClient) {
+                        perClient.add(recorder.toArray());
+                    }
+                });
+            }
+        }
+        return Result.of(perClient, errors.get());
+    }
+
+    private static final class LatencyRecorder {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * RSS (КБ) и число потоков процесса по /proc/&lt;pid&gt;/status; null, если pid не задан.
+     */
+    private record ProcessStats(long rssKb, int threads) {
+
+        static ProcessStats read(Long pid) {
+            if (pid == null) {
+                return null;
+            }
+            long rss = 0;
+            int threads = 0;
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc", pid.toString(), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        rss = Long.parseLong(line.replaceAll("\\D", ""));
+                    } else if (line.startsWith("Threads:")) {
+                        threads = Integer.parseInt(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new ProcessStats(rss, threads);
+        }
+
+        static Sampler sample(Long pid) {
+            return new Sampler(pid);
+        }
+
+        static final class Sampler {
+
+            private final Long pid;
+            private final Thread thread;
+            private volatile boolean running = true;
+            private long maxRss;
+            private int maxThreads;
+
+            private Sampler(Long pid) {
+                this.pid = pid;
+                this.thread = pid == null ? null : Thread.ofPlatform().daemon().start(this::loop);
+            }
+
+            private void loop() {
+                while (running) {
+                    ProcessStats stats = read(pid);
+                    maxRss = Math.max(maxRss, stats.rssKb);
+                    maxThreads = Math.max(maxThreads, stats.threads);
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+
+            ProcessStats stop() throws InterruptedException {
+                if (thread == null) {
+                    return null;
+                }
+                running = false;
+                thread.interrupt();
+                thread.join();
+                return new ProcessStats(maxRss, maxThreads);
+            }
+        }
+    }
+
+    private record Result(long[] latencies, long errors) {
+
+        static Result of(List<long[]> perClient, long errors) {
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, errors);
+        }
+
+        void print(String label, int concurrency, Duration duration) {
+            double seconds = duration.toMillis() / 1000.0;
+            System.out.printf("%-12s clients=%d requests=%d errors=%d throughput=%.1f req/s "
+                            + "p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                    label, concurrency, latencies.length, errors, latencies.length / seconds,
+                    percentile(0.50), percentile(0.90), percentile(0.99), percentile(1.0));
+        }
+
+        private double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(quantile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private record Options(String url, String method, String body, int concurrency,
+                           Duration duration, Duration warmup, String label, Long pid) {
+
+        static Options parse(String[] args) {
+            String url = "http://localhost:8080/api/generate-plan";
+            String method = "GET";
+            String body = "{}";
+            int concurrency = 200;
+            Duration duration = Duration.ofSeconds(30);
+            Duration warmup = Duration.ofSeconds(5);
+            String label = "run";
+            Long pid = null;
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--url" -> url = value;
+                    case "--method" -> method = value.toUpperCase();
+                    case "--body" -> body = value;
+                    case "--concurrency" -> concurrency = Integer.parseInt(value);
+                    case "--duration" -> duration = parseDuration(value);
+                    case "--warmup" -> warmup = parseDuration(value);
+                    case "--label" -> label = value;
+                    case "--pid" -> pid = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+                }
+            }
+            return new Options(url, method, body, concurrency, duration, warmup, label, pid);
+        }
+
+        HttpRequest request() {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+            if ("POST".equals(method)) {
+                builder.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body));
+            } else {
+                builder.GET();
+            }
+            return builder.build();
+        }
+
+        private static Duration parseDuration(String value) {
+            String unit = value.replaceAll("\\d", "");
+            long amount = Long.parseLong(value.replaceAll("\\D", ""));
+            return switch (unit) {
+                case "ms" -> Duration.ofMillis(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                default -> Duration.ofSeconds(amount);
+            };
+        }
+    }
+}
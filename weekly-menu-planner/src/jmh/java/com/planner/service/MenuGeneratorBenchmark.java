@@ -0,0 +1,115 @@
+package com.planner.service;
+
+import com.planner.dto.DayPreference;
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import com.planner.model.MealType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячий путь MenuGeneratorService на синтетических каталогах.
+ * Пропускная способность и перцентили задержки — режимы Throughput и SampleTime,
+ * скорость аллокаций — профилировщик gc (включён в jmh.args по умолчанию).
+ * Параметры по умолчанию — короткий представительный прогон; большие каталоги и остальные сочетания
+ * задаются через -p, например {@code -p catalogSize=100,10000,1000000 -p mealsPerDay=3,5}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MenuGeneratorBenchmark {
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    /** NONE — без предпочтений по дням, CUISINE — кухня по будням, KEYWORDS — ключевые слова на каждый день. */
+    @Param({"NONE", "KEYWORDS"})
+    public String dayPreferences;
+
+    @Param({"3"})
+    public int excludedCount;
+
+    @Param({"3"})
+    public int mealsPerDay;
+
+    private MenuGeneratorService service;
+    private RecipeCatalog catalog;
+    private MenuRequest request;
+    private DayPreference preference;
+    private BitSet excluded;
+    private PreferenceFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RecipeCatalogService catalogService = new RecipeCatalogService(null, event -> { });
+        catalog = catalogService.replace(SyntheticCatalog.recipes(catalogSize, 42));
+        service = new MenuGeneratorService(catalogService, new PlanResultCache(1, Duration.ofSeconds(1), 1),
+                new WeeklyPlanOptimizer(Duration.ofMillis(200)), new GenerationMetrics(new SimpleMeterRegistry()));
+
+        MenuRequest raw = new MenuRequest();
+        raw.setManualCalories(2000);
+        raw.setMealsPerDay(mealsPerDay);
+        raw.setExcludedIngredients(Arrays.asList(SyntheticCatalog.INGREDIENTS).subList(0, excludedCount));
+        raw.setDayPreferences(buildPreferences());
+        request = service.normalize(raw);
+
+        preference = request.getDayPreferences().isEmpty() ? null : request.getDayPreferences().get(0);
+        excluded = service.excludedRecipes(catalog, request.getExcludedIngredients());
+        filter = PreferenceFilter.of(catalog, preference);
+    }
+
+    private List<DayPreference> buildPreferences() {
+        if ("NONE".equals(dayPreferences)) {
+            return List.of();
+        }
+        String[] days = {"Понедельник", "Вторник", "Среда", "Четверг", "Пятница", "Суббота", "Воскресенье"};
+        List<DayPreference> preferences = new ArrayList<>();
+        for (int i = 0; i < days.length; i++) {
+            DayPreference day = new DayPreference();
+            day.setDay(days[i]);
+            if ("CUISINE".equals(dayPreferences) && i < 5) {
+                day.setPreferredCuisine(SyntheticCatalog.CUISINES[i]);
+            } else if ("KEYWORDS".equals(dayPreferences)) {
+                day.setKeywords(List.of(SyntheticCatalog.INGREDIENTS[10 + i], "гриб"));
+            }
+            preferences.add(day);
+        }
+        return preferences;
+    }
+
+    @Benchmark
+    public MenuPlanResponse generateWeeklyMenu() {
+        return service.generateWeeklyMenu(request, catalog);
+    }
+
+    /** Подготовка запроса: нормализация, суточная норма и калорийность слотов. */
+    @Benchmark
+    public CalorieProfile calorieProfile() {
+        return service.calorieProfile(service.normalize(request));
+    }
+
+    @Benchmark
+    public int pickRecipeForMeal() {
+        return service.pickRecipeForMeal(catalog, request, MealType.LUNCH, 700,
+                UsedRecipes.forCurrentThread(catalog.size()),
+                excluded, preference, filter, new Random(7));
+    }
+
+    /** Битсеты предпочтений дня: поиск по индексу ключевых слов и кодам кухни — фаза filter. */
+    @Benchmark
+    public PreferenceFilter preferenceFilter() {
+        return PreferenceFilter.of(catalog, preference);
+    }
+
+    @Benchmark
+    public BitSet containsExcludedIngredient() {
+        return service.excludedRecipes(catalog, request.getExcludedIngredients());
+    }
+}
@@ -0,0 +1,57 @@
+package com.planner.service;
+
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических каталогов рецептов для бенчмарков.
+ * Распределения диет, кухонь и калорий близки к демонстрационным данным из DataInitializer.
+ */
+final class SyntheticCatalog {
+
+    static final String[] DIETS = {"REGULAR", "VEGAN", "KETO", "VEGETARIAN"};
+    static final String[] CUISINES = {"Русская", "Итальянская", "Средиземноморская", "Азиатская", "Авторская"};
+    static final String[] INGREDIENTS = {
+            "гречка", "шампиньоны", "белые грибы", "яйцо", "зелень", "сливочное масло", "филе лосося",
+            "брокколи", "лимон", "чеснок", "киноа", "нут", "томаты черри", "огурец", "оливковое масло",
+            "творог", "рисовая мука", "мёд", "ягоды", "овсянка", "банан", "миндаль", "грецкие орехи",
+            "куриная грудка", "индейка", "говядина", "свинина", "тофу", "рис", "паста", "сыр", "молоко",
+            "йогурт", "авокадо", "шпинат", "морковь", "тыква", "фасоль", "чечевица", "кокосовое молоко"
+    };
+    private static final String[] DISHES = {"Салат", "Суп", "Боул", "Запеканка", "Омлет", "Паста", "Рагу", "Каша"};
+
+    private SyntheticCatalog() {
+    }
+
+    static List<Recipe> recipes(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        MealType[] mealTypes = MealType.values();
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String main = INGREDIENTS[random.nextInt(INGREDIENTS.length)];
+            StringBuilder ingredients = new StringBuilder(main);
+            int extra = 3 + random.nextInt(4);
+            for (int j = 0; j < extra; j++) {
+                ingredients.append(", ").append(INGREDIENTS[random.nextInt(INGREDIENTS.length)]);
+            }
+            recipes.add(Recipe.builder()
+                    .id((long) i + 1)
+                    .title(DISHES[random.nextInt(DISHES.length)] + " с " + main + " №" + i)
+                    .dietType(DIETS[random.nextInt(DIETS.length)])
+                    .mealType(mealTypes[random.nextInt(mealTypes.length)])
+                    .calories(120 + random.nextInt(700))
+                    .protein(5 + random.nextInt(45))
+                    .price(80 + random.nextInt(700))
+                    .cuisine(CUISINES[random.nextInt(CUISINES.length)])
+                    .cookingTime(10 + random.nextInt(50))
+                    .ingredients(ingredients.toString())
+                    .description("Синтетическое блюдо для нагрузочных замеров")
+                    .build());
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.planner.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate: JCache поверх Caffeine. Регионы создаются здесь с размерами из свойств,
+ * Hibernate получает готовый CacheManager и не создаёт регионов сам ({@code missing_cache_strategy=fail}),
+ * поэтому ни один регион не остаётся без ограничения размера. Статистика Caffeine по каждому региону
+ * выгружается в Micrometer как {@code cache.*{cache=<регион>}}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+    /** Сущности Recipe. */
+    public static final String RECIPES = "recipes";
+    /** Результаты кэшируемых запросов RecipeRepository (списки id). */
+    public static final String RECIPE_QUERIES = "recipe-queries";
+
+    private static final String DEFAULT_QUERIES = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    private static final String TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+    public static final List<String> REGIONS = List.of(RECIPES, RECIPE_QUERIES, DEFAULT_QUERIES, TIMESTAMPS);
+
+    @Bean
+    CacheManager hibernateCacheManager(@Value("${planner.recipe-cache.max-size:10000}") long maxSize,
+                                       @Value("${planner.recipe-cache.query-max-size:1000}") long queryMaxSize) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // Свой URI — свой CacheManager на контекст: провайдер иначе отдаёт один общий на весь JVM
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("planner-l2:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(RECIPES, region(maxSize));
+        cacheManager.createCache(RECIPE_QUERIES, region(queryMaxSize));
+        cacheManager.createCache(DEFAULT_QUERIES, region(queryMaxSize));
+        // Метки времени обновления таблиц нельзя вытеснять: по ним Hibernate отбраковывает устаревшие результаты запросов
+        cacheManager.createCache(TIMESTAMPS, region(null));
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : REGIONS) {
+                CaffeineCacheMetrics.monitor(registry, nativeCache(hibernateCacheManager, region), region);
+            }
+        };
+    }
+
+    /**
+     * Caffeine-кэш под регионом JCache — для размера и статистики попаданий.
+     */
+    @SuppressWarnings("unchecked")
+    public static Cache<Object, Object> nativeCache(CacheManager cacheManager, String region) {
+        return cacheManager.getCache(region).unwrap(Cache.class);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(Long maxSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate сам хранит разобранные копии состояния — сериализация при каждом чтении не нужна
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        return configuration;
+    }
+}
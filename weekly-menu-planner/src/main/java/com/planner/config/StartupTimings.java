@@ -0,0 +1,50 @@
+package com.planner.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Время старта по фазам: запуск JVM до SpringApplication.run, поднятие контекста и шаги инициализации данных.
+ * Итог пишется в лог одной строкой, когда приложение готово принимать запросы.
+ */
+@Component
+public class StartupTimings {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimings.class);
+
+    private final Map<String, Duration> phases = new LinkedHashMap<>();
+    private Duration contextStartup;
+
+    public synchronized void record(String phase, long startNanos) {
+        phases.put(phase, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    @EventListener
+    public synchronized void onStarted(ApplicationStartedEvent event) {
+        contextStartup = event.getTimeTaken();
+    }
+
+    @EventListener
+    public synchronized void onReady(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        StringJoiner report = new StringJoiner(", ");
+        if (event.getTimeTaken() != null) {
+            report.add("jvm=" + Math.max(0, uptime - event.getTimeTaken().toMillis()) + " мс");
+        }
+        if (contextStartup != null) {
+            report.add("context=" + contextStartup.toMillis() + " мс");
+        }
+        phases.forEach((phase, duration) -> report.add(phase + "=" + duration.toMillis() + " мс"));
+        log.info("Приложение готово за {} мс: {}", uptime, report);
+    }
+}
@@ -0,0 +1,29 @@
+package com.planner.controller;
+
+/**
+ * Сильные ETag для ответов API. Версии каталога и рецептов живут только в памяти текущего процесса
+ * (H2 in-memory), поэтому в каждый тег входит метка запуска — после рестарта старые теги не совпадут.
+ */
+final class ETags {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    static String catalog(long catalogVersion) {
+        return quote("catalog-" + EPOCH + "-" + catalogVersion);
+    }
+
+    static String recipe(long id, Long version) {
+        return quote("recipe-" + EPOCH + "-" + id + "-" + (version == null ? 0 : version));
+    }
+
+    static String plan(String fingerprint) {
+        return quote("plan-" + EPOCH + "-" + fingerprint);
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -1,74 +1,339 @@
 package com.planner.controller;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.planner.config.SecondLevelCacheConfig;
+import com.planner.dto.BatchPlanResult;
 import com.planner.dto.MenuPlanResponse;
 import com.planner.dto.MenuRequest;
+import com.planner.dto.RecipeImportReport;
+import com.planner.dto.RecipePage;
+import com.planner.dto.RecipeSummary;
+import com.planner.model.MealType;
 import com.planner.model.Recipe;
 import com.planner.repository.RecipeRepository;
+import com.planner.service.BatchPlanService;
 import com.planner.service.MenuGeneratorService;
+import com.planner.service.PlanPrewarmer;
+import com.planner.service.PlanRequestCoalescer;
+import com.planner.service.PlanResultCache;
+import com.planner.service.RecipeCatalog;
+import com.planner.service.RecipeCatalogService;
+import com.planner.service.RecipeImportService;
+import com.planner.service.SavedPlanService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.cache.CacheManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MenuController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final MenuGeneratorService menuService;
     private final RecipeRepository recipeRepository;
+    private final RecipeCatalogService catalogService;
+    private final BatchPlanService batchPlanService;
+    private final PlanResultCache planCache;
+    private final RecipeImportService importService;
+    private final PlanRequestCoalescer coalescer;
+    private final SavedPlanService savedPlanService;
+    private final PlanPrewarmer planPrewarmer;
+    private final CacheManager hibernateCacheManager;
 
-    public MenuController(MenuGeneratorService menuService, RecipeRepository recipeRepository) {
+    public MenuController(MenuGeneratorService menuService,
+                          RecipeRepository recipeRepository,
+                          RecipeCatalogService catalogService,
+                          BatchPlanService batchPlanService,
+                          PlanResultCache planCache,
+                          RecipeImportService importService,
+                          PlanRequestCoalescer coalescer,
+                          SavedPlanService savedPlanService,
+                          PlanPrewarmer planPrewarmer,
+                          CacheManager hibernateCacheManager) {
         this.menuService = menuService;
         this.recipeRepository = recipeRepository;
+        this.catalogService = catalogService;
+        this.batchPlanService = batchPlanService;
+        this.planCache = planCache;
+        this.importService = importService;
+        this.coalescer = coalescer;
+        this.savedPlanService = savedPlanService;
+        this.planPrewarmer = planPrewarmer;
+        this.hibernateCacheManager = hibernateCacheManager;
     }
 
     @GetMapping("/recipes")
-    public List<Recipe> getAllRecipes() {
-        return recipeRepository.findAll();
+    public ResponseEntity<RecipePage> getRecipes(WebRequest webRequest,
+                                                 @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                 @RequestParam(required = false) Long cursor,
+                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                 @RequestParam(required = false) String dietType,
+                                                 @RequestParam(required = false) MealType mealType,
+                                                 @RequestParam(required = false) String cuisine,
+                                                 @RequestParam(required = false) Integer minCalories,
+                                                 @RequestParam(required = false) Integer maxCalories) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        // Версию читаем до запроса в БД: снимок подменяется после коммита, поэтому тег может
+        // оказаться старше данных (лишний 200 при следующей проверке), но не новее
+        String tenant = Tenants.normalize(tenantId);
+        String etag = ETags.catalog(catalogService.current(tenant).getVersion());
+        return conditional(webRequest, etag, CacheControl.noCache(), () -> {
+            // Берём на одну запись больше, чтобы понять, есть ли следующая страница
+            List<RecipeSummary> items = recipeRepository.findSummaries(cursor == null ? 0 : cursor, tenant,
+                    blankToNull(dietType), mealType, blankToNull(cuisine), minCalories, maxCalories,
+                    Limit.of(limit + 1));
+            if (items.size() <= limit) {
+                return new RecipePage(items, null);
+            }
+            List<RecipeSummary> page = items.subList(0, limit);
+            return new RecipePage(page, page.get(limit - 1).getId());
+        });
     }
 
     @GetMapping("/recipes/{id}")
-    public Recipe getRecipe(@PathVariable long id) {
-        return recipeRepository.findById(id)
+    public ResponseEntity<Recipe> getRecipe(WebRequest webRequest,
+                                            @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                            @PathVariable long id) {
+        // Снимок каталога держит полные рецепты — и проверка тега, и ответ обходятся без БД
+        Recipe recipe = catalogService.current(Tenants.normalize(tenantId)).findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Рецепт не найден"));
+        return conditional(webRequest, ETags.recipe(id, recipe.getVersion()), CacheControl.noCache(), () -> recipe);
     }
 
     @PostMapping("/recipes")
-    public Recipe addRecipe(@RequestBody Recipe recipe) {
+    public Recipe addRecipe(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                            @RequestBody Recipe recipe) {
         recipe.setId(null);
-        return recipeRepository.save(recipe);
+        recipe.setVersion(null);
+        recipe.setTenantId(Tenants.normalize(tenantId));
+        Recipe saved = recipeRepository.save(recipe);
+        catalogService.recipeSaved(saved);
+        return saved;
     }
 
+    @PostMapping(value = "/recipes/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public RecipeImportReport importRecipesNdjson(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                  HttpServletRequest request) throws IOException {
+        return importService.importNdjson(request.getInputStream(), Tenants.normalize(tenantId));
+    }
+
+    @PostMapping(value = "/recipes/import", consumes = "text/csv")
+    public RecipeImportReport importRecipesCsv(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                               HttpServletRequest request) throws IOException {
+        return importService.importCsv(request.getInputStream(), Tenants.normalize(tenantId));
+    }
+
+    /**
+     * Обновление с защитой от потерянных изменений: If-Match с ETag рецепта или его version в теле должны
+     * совпадать с текущими (иначе 412 и 409 соответственно). Без того и другого рецепт перезаписывается.
+     */
     @PutMapping("/recipes/{id}")
-    public Recipe updateRecipe(@PathVariable long id, @RequestBody Recipe payload) {
+    public Recipe updateRecipe(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                               @PathVariable long id,
+                               @RequestBody Recipe payload) {
+        String tenant = Tenants.normalize(tenantId);
         Recipe existing = recipeRepository.findById(id)
+                .filter(recipe -> Tenants.owns(tenant, recipe))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Рецепт не найден"));
+        if (ifMatch != null && !ifMatch.trim().equals("*")
+                && !ifMatch.contains(ETags.recipe(id, existing.getVersion()))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Рецепт изменён после чтения");
+        }
+        if (payload.getVersion() != null && !payload.getVersion().equals(existing.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Рецепт изменён после чтения");
+        }
         payload.setId(existing.getId());
-        return recipeRepository.save(payload);
+        if (payload.getVersion() == null) {
+            payload.setVersion(existing.getVersion());
+        }
+        payload.setTenantId(tenant);
+        Recipe saved;
+        try {
+            saved = recipeRepository.save(payload);
+        } catch (OptimisticLockingFailureException ex) {
+            // Параллельное обновление успело между проверкой и записью
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Рецепт изменён после чтения");
+        }
+        catalogService.recipeSaved(saved);
+        return saved;
     }
 
     @DeleteMapping("/recipes/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteRecipe(@PathVariable long id) {
-        if (!recipeRepository.existsById(id)) {
+    public void deleteRecipe(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                             @PathVariable long id) {
+        String tenant = Tenants.normalize(tenantId);
+        if (recipeRepository.findById(id).filter(recipe -> Tenants.owns(tenant, recipe)).isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Рецепт не найден");
         }
         recipeRepository.deleteById(id);
+        catalogService.recipeDeleted(id);
     }
 
     @PostMapping("/generate-plan")
-    public MenuPlanResponse generatePersonalPlan(@RequestBody MenuRequest request) {
-        return menuService.generateWeeklyMenu(request);
+    public MenuPlanResponse generatePersonalPlan(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                 @RequestBody MenuRequest request) {
+        return coalescer.generate(PlanRequestCoalescer.POST_PLAN, request,
+                catalogService.current(Tenants.normalize(tenantId)));
     }
 
     @GetMapping("/generate-plan")
-    public MenuPlanResponse generatePlan(
+    public ResponseEntity<MenuPlanResponse> generatePlan(
+            WebRequest webRequest,
+            @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
             @RequestParam(defaultValue = "ALL") String diet,
-            @RequestParam(defaultValue = "2000") int calories) {
+            @RequestParam(defaultValue = "2000") int calories,
+            @RequestParam(required = false) String weekId) {
         MenuRequest request = new MenuRequest();
         request.setDiet(diet);
         request.setManualCalories(calories);
-        return menuService.generateWeeklyMenu(request);
+        request.setWeekId(weekId);
+        RecipeCatalog catalog = catalogService.current(Tenants.normalize(tenantId));
+        String fingerprint = menuService.planFingerprint(request, catalog);
+        if (fingerprint == null) {
+            // Без weekId каждый ответ — новый случайный план
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(coalescer.generate(PlanRequestCoalescer.GET_PLAN, request, catalog));
+        }
+        return conditional(webRequest, ETags.plan(fingerprint), CacheControl.noCache(),
+                () -> menuService.generateWeeklyMenu(request, catalog));
+    }
+
+    @PostMapping("/generate-plans")
+    public List<BatchPlanResult> generatePlans(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                               @RequestBody List<MenuRequest> requests) {
+        return batchPlanService.generate(requests, catalogService.current(Tenants.normalize(tenantId)));
+    }
+
+    @PostMapping(value = "/generate-plans/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPlans(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                             HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        RecipeCatalog catalog = catalogService.current(Tenants.normalize(tenantId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> batchPlanService.stream(body, output, catalog));
+    }
+
+    @PostMapping("/plans")
+    public MenuPlanResponse savePlan(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                     @RequestBody MenuRequest request) {
+        return savedPlanService.create(request, Tenants.normalize(tenantId));
+    }
+
+    @GetMapping("/plans/{id}")
+    public MenuPlanResponse getPlan(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                    @PathVariable long id) {
+        return savedPlanService.get(id, Tenants.normalize(tenantId));
+    }
+
+    @PostMapping("/plans/{id}/days/{day}/regenerate")
+    public MenuPlanResponse regenerateDay(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                          @PathVariable long id,
+                                          @PathVariable int day) {
+        return savedPlanService.regenerateDay(id, day, Tenants.normalize(tenantId));
+    }
+
+    @PostMapping("/plans/{id}/days/{day}/meals/{slot}/regenerate")
+    public MenuPlanResponse regenerateMeal(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                           @PathVariable long id,
+                                           @PathVariable int day,
+                                           @PathVariable int slot) {
+        return savedPlanService.regenerateMeal(id, day, slot, Tenants.normalize(tenantId));
+    }
+
+    @GetMapping("/plan-cache/stats")
+    public Map<String, Object> planCacheStats() {
+        CacheStats stats = planCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", planCache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("templates", planCache.templateCount());
+        result.put("templateHits", planCache.templateHits());
+        return result;
+    }
+
+    /**
+     * Регионы кэша второго уровня Hibernate: по размеру и вытеснениям видно, хватает ли planner.recipe-cache.*.
+     */
+    @GetMapping("/recipe-cache/stats")
+    public Map<String, Object> recipeCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String region : SecondLevelCacheConfig.REGIONS) {
+            Cache<Object, Object> cache = SecondLevelCacheConfig.nativeCache(hibernateCacheManager, region);
+            CacheStats stats = cache.stats();
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("size", cache.estimatedSize());
+            regionStats.put("hits", stats.hitCount());
+            regionStats.put("misses", stats.missCount());
+            regionStats.put("hitRate", stats.hitRate());
+            regionStats.put("evictions", stats.evictionCount());
+            result.put(region, regionStats);
+        }
+        return result;
+    }
+
+    /**
+     * Прогрев шаблонов на неделю вне расписания; без weekId — следующая ISO-неделя.
+     * Шаблоны считаются в фоне, ответ 202 сообщает, сколько профилей поставлено в очередь.
+     */
+    @PostMapping("/plan-cache/prewarm")
+    public ResponseEntity<Map<String, Object>> prewarmPlans(@RequestParam(required = false) String weekId) {
+        String week = weekId != null && !weekId.isBlank() ? weekId : PlanPrewarmer.nextWeekId();
+        int queued = planPrewarmer.enqueue(week);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("weekId", week);
+        result.put("queued", queued);
+        result.put("templates", planCache.templateCount());
+        return ResponseEntity.accepted().body(result);
+    }
+
+    /**
+     * Ответ с ETag: при совпадении If-None-Match — 304 без вычисления тела.
+     */
+    private static <T> ResponseEntity<T> conditional(WebRequest webRequest,
+                                                     String etag,
+                                                     CacheControl cacheControl,
+                                                     Supplier<T> body) {
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 }
@@ -0,0 +1,161 @@
+package com.planner.controller;
+
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import com.planner.dto.RecipePage;
+import com.planner.dto.RecipeSummary;
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+import com.planner.service.MenuGeneratorService;
+import com.planner.service.PlanRequestCoalescer;
+import com.planner.service.RecipeCatalog;
+import com.planner.service.RecipeCatalogService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующий вариант API чтения (профиль reactive, WebFlux). Рецепты и генерация берутся из снимка каталога
+ * в памяти, поэтому ни один запрос не ждёт БД; генерация и отбор страницы рецептов — вычисления на CPU
+ * и выполняются на параллельном планировщике, а не на потоках event loop.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMenuController {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Executor GENERATION = task -> Schedulers.parallel().schedule(task);
+
+    private final MenuGeneratorService menuService;
+    private final RecipeCatalogService catalogService;
+    private final PlanRequestCoalescer coalescer;
+
+    public ReactiveMenuController(MenuGeneratorService menuService,
+                                  RecipeCatalogService catalogService,
+                                  PlanRequestCoalescer coalescer) {
+        this.menuService = menuService;
+        this.catalogService = catalogService;
+        this.coalescer = coalescer;
+    }
+
+    @GetMapping("/recipes")
+    public Mono<ResponseEntity<RecipePage>> getRecipes(ServerWebExchange exchange,
+                                                       @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                       @RequestParam(required = false) Long cursor,
+                                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                       @RequestParam(required = false) String dietType,
+                                                       @RequestParam(required = false) MealType mealType,
+                                                       @RequestParam(required = false) String cuisine,
+                                                       @RequestParam(required = false) Integer minCalories,
+                                                       @RequestParam(required = false) Integer maxCalories) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        RecipeCatalog catalog = catalogService.current(Tenants.normalize(tenantId));
+        // Те же условия, что у RecipeRepository.findSummaries
+        Predicate<Recipe> filter = recipe -> (isBlank(dietType) || dietType.trim().equalsIgnoreCase(recipe.getDietType()))
+                && (mealType == null || mealType == recipe.getMealType())
+                && (isBlank(cuisine) || cuisine.trim().equalsIgnoreCase(recipe.getCuisine()))
+                && (minCalories == null || recipe.getCalories() != null && recipe.getCalories() >= minCalories)
+                && (maxCalories == null || recipe.getCalories() != null && recipe.getCalories() <= maxCalories);
+        // Отбор страницы — проход по снимку с фильтром, на больших каталогах не место для event loop
+        return conditional(exchange, ETags.catalog(catalog.getVersion()), CacheControl.noCache(), computed(() -> {
+            List<RecipeSummary> items = catalog.page(cursor == null ? 0 : cursor, filter, limit + 1).stream()
+                    .map(RecipeSummary::of)
+                    .toList();
+            if (items.size() <= limit) {
+                return new RecipePage(items, null);
+            }
+            List<RecipeSummary> page = items.subList(0, limit);
+            return new RecipePage(page, page.get(limit - 1).getId());
+        }));
+    }
+
+    @GetMapping("/recipes/{id}")
+    public Mono<ResponseEntity<Recipe>> getRecipe(ServerWebExchange exchange,
+                                                  @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                  @PathVariable long id) {
+        Recipe recipe = catalogService.current(Tenants.normalize(tenantId)).findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Рецепт не найден"));
+        return conditional(exchange, ETags.recipe(id, recipe.getVersion()), CacheControl.noCache(), Mono.just(recipe));
+    }
+
+    @PostMapping("/generate-plan")
+    public Mono<MenuPlanResponse> generatePersonalPlan(@RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+                                                       @RequestBody MenuRequest request) {
+        RecipeCatalog catalog = catalogService.current(Tenants.normalize(tenantId));
+        return coalesced(PlanRequestCoalescer.POST_PLAN, request, catalog);
+    }
+
+    @GetMapping("/generate-plan")
+    public Mono<ResponseEntity<MenuPlanResponse>> generatePlan(
+            ServerWebExchange exchange,
+            @RequestHeader(value = Tenants.HEADER, required = false) String tenantId,
+            @RequestParam(defaultValue = "ALL") String diet,
+            @RequestParam(defaultValue = "2000") int calories,
+            @RequestParam(required = false) String weekId) {
+        MenuRequest request = new MenuRequest();
+        request.setDiet(diet);
+        request.setManualCalories(calories);
+        request.setWeekId(weekId);
+        RecipeCatalog catalog = catalogService.current(Tenants.normalize(tenantId));
+        String fingerprint = menuService.planFingerprint(request, catalog);
+        if (fingerprint == null) {
+            // Без weekId каждый ответ — новый случайный план
+            return coalesced(PlanRequestCoalescer.GET_PLAN, request, catalog)
+                    .map(plan -> ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(plan));
+        }
+        String etag = ETags.plan(fingerprint);
+        if (exchange.checkNotModified(etag)) {
+            return Mono.just(notModified(etag, CacheControl.noCache()));
+        }
+        return computed(() -> menuService.generateWeeklyMenu(request, catalog))
+                .map(plan -> ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(plan));
+    }
+
+    /**
+     * Запрос, совпавший с уже идущей генерацией, ждёт её future, не занимая поток планировщика.
+     */
+    private Mono<MenuPlanResponse> coalesced(String endpoint, MenuRequest request, RecipeCatalog catalog) {
+        return Mono.fromFuture(() -> coalescer.generateAsync(endpoint, request, catalog, GENERATION));
+    }
+
+    private static <T> Mono<T> computed(Supplier<T> computation) {
+        return Mono.fromSupplier(computation).subscribeOn(Schedulers.parallel());
+    }
+
+    /**
+     * Ответ с ETag: при совпадении If-None-Match — 304 без подписки на тело.
+     */
+    private static <T> Mono<ResponseEntity<T>> conditional(ServerWebExchange exchange,
+                                                           String etag,
+                                                           CacheControl cacheControl,
+                                                           Mono<T> body) {
+        if (exchange.checkNotModified(etag)) {
+            return Mono.just(notModified(etag, cacheControl));
+        }
+        return body.map(value -> ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(value));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
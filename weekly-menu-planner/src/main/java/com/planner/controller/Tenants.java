@@ -0,0 +1,27 @@
+package com.planner.controller;
+
+import com.planner.model.Recipe;
+
+import java.util.Objects;
+
+/**
+ * Арендатор (партнёрский бренд) запроса. Без заголовка запрос работает с общим каталогом.
+ */
+final class Tenants {
+
+    static final String HEADER = "X-Tenant-Id";
+
+    private Tenants() {
+    }
+
+    static String normalize(String tenantId) {
+        return tenantId == null || tenantId.isBlank() ? null : tenantId.trim();
+    }
+
+    /**
+     * Менять и удалять можно только свои рецепты: арендатор — рецепты своего слоя, без арендатора — общие.
+     */
+    static boolean owns(String tenantId, Recipe recipe) {
+        return Objects.equals(tenantId, recipe.getTenantId());
+    }
+}
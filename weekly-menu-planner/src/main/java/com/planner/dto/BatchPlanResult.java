@@ -0,0 +1,25 @@
+package com.planner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPlanResult {
+
+    private int index;
+    private MenuPlanResponse plan;
+    private String error;
+
+    public static BatchPlanResult success(int index, MenuPlanResponse plan) {
+        return BatchPlanResult.builder().index(index).plan(plan).build();
+    }
+
+    public static BatchPlanResult failure(int index, String error) {
+        return BatchPlanResult.builder().index(index).error(error).build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.planner.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.planner.model.Recipe;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,10 +14,20 @@ import java.util.Map;
 @AllArgsConstructor
 public class MenuPlanResponse {
 
+    // Есть только у сохранённых планов (/api/plans)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long planId;
     private Map<String, List<Recipe>> plan;
     private int targetCalories;
     private int averageDailyCalories;
     private int weeklyCalories;
+    private int weeklyProtein;
+    private int weeklyPrice;
+    // Только если в запросе заданы minDailyProtein / weeklyBudget: выполнено ли ограничение в готовом плане
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean proteinTargetMet;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean budgetMet;
     private MenuRequest profile;
 }
 
@@ -1,6 +1,9 @@
 package com.planner.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.planner.model.Activity;
+import com.planner.model.Gender;
+import com.planner.model.Goal;
 import lombok.Data;
 
 import java.util.Collections;
@@ -11,18 +14,22 @@ import java.util.List;
 public class MenuRequest {
 
     private String diet = "ALL";
-    private String gender = "FEMALE";
+    private Gender gender = Gender.FEMALE;
     private Integer age = 30;
     private Double height = 165.0; // cm
     private Double weight = 60.0;  // kg
-    private String activity = "MODERATE";
-    private String goal = "MAINTAIN";
+    private Activity activity = Activity.MODERATE;
+    private Goal goal = Goal.MAINTAIN;
     private Integer mealsPerDay = 3;
     private Boolean includeSnack = Boolean.FALSE;
     private List<String> excludedIngredients = List.of();
     private List<DayPreference> dayPreferences = List.of();
     private Integer manualCalories;
     private String weekId;
+    // GREEDY — подбор по слотам; OPTIMIZE — оптимизация всей недели с ограничением по времени
+    private String mode = "GREEDY";
+    private Integer minDailyProtein; // g
+    private Integer weeklyBudget;
 
     public List<String> getExcludedIngredients() {
         return excludedIngredients == null ? Collections.emptyList() : excludedIngredients;
@@ -35,5 +42,13 @@ public class MenuRequest {
     public Integer getManualCalories() {
         return manualCalories != null && manualCalories > 0 ? manualCalories : null;
     }
+
+    public Integer getMinDailyProtein() {
+        return minDailyProtein != null && minDailyProtein > 0 ? minDailyProtein : null;
+    }
+
+    public Integer getWeeklyBudget() {
+        return weeklyBudget != null && weeklyBudget > 0 ? weeklyBudget : null;
+    }
 }
 
@@ -0,0 +1,30 @@
+package com.planner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RecipeImportReport {
+
+    private long received;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    /** Ошибки по строкам; список обрезается, полное число — в {@code failed}. */
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+
+        /** Номер строки во входном файле (с 1). */
+        private long line;
+        private String message;
+    }
+}
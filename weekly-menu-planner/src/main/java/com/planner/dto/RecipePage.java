@@ -0,0 +1,20 @@
+package com.planner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница списка рецептов. {@code nextCursor} передаётся в параметр {@code cursor} следующего запроса;
+ * null — страниц больше нет.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecipePage {
+
+    private List<RecipeSummary> items;
+    private Long nextCursor;
+}
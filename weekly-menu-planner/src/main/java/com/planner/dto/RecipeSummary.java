@@ -0,0 +1,33 @@
+package com.planner.dto;
+
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Карточка рецепта для списка: без TEXT-колонок (ингредиенты, инструкции, описание).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSummary {
+
+    private Long id;
+    private String title;
+    private Integer calories;
+    private Integer protein;
+    private Integer price;
+    private String dietType;
+    private String cuisine;
+    private MealType mealType;
+    private Integer cookingTime;
+    private String imageUrl;
+
+    public static RecipeSummary of(Recipe recipe) {
+        return new RecipeSummary(recipe.getId(), recipe.getTitle(), recipe.getCalories(), recipe.getProtein(),
+                recipe.getPrice(), recipe.getDietType(), recipe.getCuisine(), recipe.getMealType(),
+                recipe.getCookingTime(), recipe.getImageUrl());
+    }
+}
@@ -0,0 +1,42 @@
+package com.planner.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Уровень активности и множитель к базовому обмену (формула Миффлина — Сан Жеора).
+ */
+public enum Activity {
+    LOW(1.2),
+    MODERATE(1.375),
+    ACTIVE(1.55),
+    VERY_ACTIVE(1.725);
+
+    private static final Activity[] VALUES = values();
+
+    private final double factor;
+
+    Activity(double factor) {
+        this.factor = factor;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * Значение из запроса без учёта регистра; неизвестное — MODERATE.
+     */
+    @JsonCreator
+    public static Activity from(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (Activity activity : VALUES) {
+            if (activity.name().equalsIgnoreCase(trimmed)) {
+                return activity;
+            }
+        }
+        return MODERATE;
+    }
+}
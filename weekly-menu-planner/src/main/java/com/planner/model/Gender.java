@@ -0,0 +1,19 @@
+package com.planner.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+public enum Gender {
+    MALE,
+    FEMALE;
+
+    /**
+     * Значение из запроса без учёта регистра; всё, кроме MALE, считается FEMALE, как и раньше.
+     */
+    @JsonCreator
+    public static Gender from(String value) {
+        if (value == null) {
+            return null;
+        }
+        return MALE.name().equalsIgnoreCase(value.trim()) ? MALE : FEMALE;
+    }
+}
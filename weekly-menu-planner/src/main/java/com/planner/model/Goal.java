@@ -0,0 +1,46 @@
+package com.planner.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Цель по весу и множитель к суточной норме.
+ */
+public enum Goal {
+    LOSE(0.85),
+    MAINTAIN(1.0),
+    GAIN(1.15),
+    /**
+     * Нераспознанное значение из запроса: множитель как у MAINTAIN, но это не MAINTAIN —
+     * фиксированная норма для диеты REGULAR к нему не применяется.
+     */
+    UNKNOWN(1.0);
+
+    private static final Goal[] VALUES = values();
+
+    private final double factor;
+
+    Goal(double factor) {
+        this.factor = factor;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * Значение из запроса без учёта регистра; неизвестное — UNKNOWN.
+     */
+    @JsonCreator
+    public static Goal from(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (Goal goal : VALUES) {
+            if (goal.name().equalsIgnoreCase(trimmed)) {
+                return goal;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,37 @@
+package com.planner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "plan_days")
+public class PlanDay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plan_days_seq")
+    @SequenceGenerator(name = "plan_days_seq", sequenceName = "plan_days_seq", allocationSize = 50)
+    private Long id;
+
+    private int dayIndex;   // 0 — понедельник
+
+    @Column(nullable = false)
+    private String dayName;
+
+    @Builder.Default
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "day_id", nullable = false)
+    @OrderBy("slotIndex")
+    @BatchSize(size = 7)
+    private List<PlanMeal> meals = new ArrayList<>();
+}
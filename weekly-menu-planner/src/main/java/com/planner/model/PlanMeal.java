@@ -0,0 +1,37 @@
+package com.planner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Слот приёма пищи в сохранённом плане.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "plan_meals")
+public class PlanMeal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plan_meals_seq")
+    @SequenceGenerator(name = "plan_meals_seq", sequenceName = "plan_meals_seq", allocationSize = 50)
+    private Long id;
+
+    private int slotIndex;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MealType mealType;
+
+    // Калорийность слота из распределения дневной нормы на момент генерации
+    private int targetCalories;
+
+    // Рецепт берётся из снимка каталога по id, а не связью @ManyToOne: чтение и перегенерация плана
+    // не загружают сущности Recipe из БД. NULL — заглушка или рецепт удалён
+    private Long recipeId;
+}
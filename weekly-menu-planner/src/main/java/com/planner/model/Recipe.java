@@ -1,10 +1,17 @@
 package com.planner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.planner.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
@@ -12,10 +19,18 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "recipes")
+@SecondaryTable(name = "recipe_texts", pkJoinColumns = @PrimaryKeyJoinColumn(name = "recipe_id"))
+// Кэш второго уровня: поиск по id (PUT/DELETE) и результаты кэшируемых запросов не ходят в БД;
+// изменения через EntityManager обновляют его сами
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.RECIPES)
 public class Recipe {
 
+    // SEQUENCE (а не IDENTITY), чтобы Hibernate мог группировать INSERT в JDBC batch;
+    // allocationSize выдаёт id блоками без обращения к последовательности на каждую строку
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipes_seq")
+    @SequenceGenerator(name = "recipes_seq", sequenceName = "recipes_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -24,6 +39,14 @@ public class Recipe {
     private Integer price;
 
     private String dietType;
+
+    // Вычисляемая колонка UPPER(diet_type) с индексом; нужна только для запросов
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @Column(insertable = false, updatable = false)
+    private String dietKey;
+
     private String cuisine;
 
     @Enumerated(EnumType.STRING)
@@ -31,14 +54,26 @@ public class Recipe {
 
     private Integer cookingTime; // minutes
 
-    @Column(columnDefinition = "TEXT")
+    // Длинные тексты — во вторичной таблице, чтобы не раздувать строки recipes
+    @Lob
+    @Column(table = "recipe_texts")
     private String ingredients;
 
-    @Column(columnDefinition = "TEXT")
+    @Lob
+    @Column(table = "recipe_texts")
     private String instructions;
 
-    @Column(columnDefinition = "TEXT")
+    @Lob
+    @Column(table = "recipe_texts")
     private String description;
 
     private String imageUrl;
+
+    // Арендатор (партнёрский бренд), которому принадлежит рецепт; null — общий каталог.
+    // Задаётся заголовком запроса, а не телом
+    @JsonIgnore
+    private String tenantId;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,53 @@
+package com.planner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сохранённый недельный план. Дни и слоты принадлежат плану и сохраняются вместе с ним.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "weekly_plans")
+public class WeeklyPlan {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weekly_plans_seq")
+    @SequenceGenerator(name = "weekly_plans_seq", sequenceName = "weekly_plans_seq", allocationSize = 50)
+    private Long id;
+
+    // Нормализованный профиль в JSON: перегенерация применяет те же диету, исключения и предпочтения
+    @Lob
+    @Column(nullable = false)
+    private String profile;
+
+    // Арендатор, по каталогу которого собран план; null — общий каталог
+    private String tenantId;
+
+    private int targetCalories;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    // Все дни плана догружаются одним запросом, их слоты — ещё одним
+    @Builder.Default
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "plan_id", nullable = false)
+    @OrderBy("dayIndex")
+    @BatchSize(size = 7)
+    private List<PlanDay> days = new ArrayList<>();
+}
@@ -1,16 +1,64 @@
 package com.planner.repository;
 
+import com.planner.config.SecondLevelCacheConfig;
+import com.planner.dto.RecipeSummary;
 import com.planner.model.MealType;
 import com.planner.model.Recipe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
 
-    List<Recipe> findByDietTypeIgnoreCase(String dietType);
+    // Сравнение по индексируемой колонке diet_key вместо upper(diet_type) = upper(?)
+    @Query("select r from Recipe r where r.dietKey = upper(:dietType)")
+    List<Recipe> findByDietTypeIgnoreCase(@Param("dietType") String dietType);
 
-    List<Recipe> findByDietTypeIgnoreCaseAndMealType(String dietType, MealType mealType);
+    // Кэш запросов хранит только id; сами рецепты берутся из кэша сущностей.
+    // Любая запись в recipes через Hibernate делает закэшированные результаты устаревшими
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.RECIPE_QUERIES)
+    })
+    @Query("select r from Recipe r where r.dietKey = upper(:dietType) and r.mealType = :mealType")
+    List<Recipe> findByDietTypeIgnoreCaseAndMealType(@Param("dietType") String dietType,
+                                                     @Param("mealType") MealType mealType);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.RECIPE_QUERIES)
+    })
     List<Recipe> findByMealType(MealType mealType);
+
+    /**
+     * Keyset-пагинация по id: следующая страница начинается после {@code afterId}.
+     * Пустой фильтр (null) не ограничивает выборку. Видны общие рецепты и рецепты арендатора {@code tenantId}.
+     */
+    @Query("""
+            select new com.planner.dto.RecipeSummary(r.id, r.title, r.calories, r.protein, r.price,
+                   r.dietType, r.cuisine, r.mealType, r.cookingTime, r.imageUrl)
+            from Recipe r
+            where r.id > :afterId
+              and (r.tenantId is null or r.tenantId = :tenantId)
+              and (:dietType is null or r.dietKey = upper(:dietType))
+              and (:mealType is null or r.mealType = :mealType)
+              and (:cuisine is null or upper(r.cuisine) = upper(:cuisine))
+              and (:minCalories is null or r.calories >= :minCalories)
+              and (:maxCalories is null or r.calories <= :maxCalories)
+            order by r.id
+            """)
+    List<RecipeSummary> findSummaries(@Param("afterId") long afterId,
+                                      @Param("tenantId") String tenantId,
+                                      @Param("dietType") String dietType,
+                                      @Param("mealType") MealType mealType,
+                                      @Param("cuisine") String cuisine,
+                                      @Param("minCalories") Integer minCalories,
+                                      @Param("maxCalories") Integer maxCalories,
+                                      Limit limit);
 }
@@ -0,0 +1,7 @@
+package com.planner.repository;
+
+import com.planner.model.WeeklyPlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface WeeklyPlanRepository extends JpaRepository<WeeklyPlan, Long> {
+}
@@ -0,0 +1,140 @@
+package com.planner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planner.dto.BatchPlanResult;
+import com.planner.dto.MenuRequest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Пакетная генерация планов: один снимок каталога (общего или арендатора) на весь пакет,
+ * генерация на общем пуле с ограниченным параллелизмом.
+ * Потоковый режим читает и пишет NDJSON по одной записи, держа в памяти лишь окно из нескольких планов.
+ */
+@Service
+public class BatchPlanService {
+
+    private final MenuGeneratorService menuService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final int streamWindow;
+
+    public BatchPlanService(MenuGeneratorService menuService,
+                            ObjectMapper objectMapper,
+                            @Value("${planner.batch.parallelism:0}") int parallelism,
+                            @Value("${planner.batch.max-size:10000}") int maxBatchSize,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.menuService = menuService;
+        this.objectMapper = objectMapper;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // Виртуальные потоки не меняют верхнюю границу параллелизма: пул по-прежнему фиксированного размера
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("plan-batch-", 0).factory()
+                : Thread.ofPlatform().name("plan-batch-", 0).factory();
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.maxBatchSize = maxBatchSize;
+        this.streamWindow = threads * 2;
+    }
+
+    public List<BatchPlanResult> generate(List<MenuRequest> requests, RecipeCatalog catalog) {
+        if (requests == null || requests.isEmpty()) {
+            return List.of();
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Слишком много профилей в пакете, максимум " + maxBatchSize);
+        }
+
+        List<CompletableFuture<BatchPlanResult>> futures = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            MenuRequest request = requests.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> generateOne(index, request, catalog), executor));
+        }
+
+        List<BatchPlanResult> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (CompletionException ex) {
+                results.add(BatchPlanResult.failure(i, describe(ex.getCause())));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Читает профили из NDJSON и пишет по строке результата на каждый профиль в порядке ввода.
+     * Новые профили не читаются, пока клиент не забрал готовые результаты из окна.
+     */
+    public void stream(InputStream input, OutputStream output, RecipeCatalog catalog) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Deque<CompletableFuture<BatchPlanResult>> window = new ArrayDeque<>(streamWindow);
+        int index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (window.size() >= streamWindow) {
+                writeRecord(output, window.removeFirst());
+            }
+            window.addLast(submit(index++, line, catalog));
+        }
+        while (!window.isEmpty()) {
+            writeRecord(output, window.removeFirst());
+        }
+        output.flush();
+    }
+
+    private CompletableFuture<BatchPlanResult> submit(int index, String line, RecipeCatalog catalog) {
+        MenuRequest request;
+        try {
+            request = objectMapper.readValue(line, MenuRequest.class);
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.completedFuture(
+                    BatchPlanResult.failure(index, "Некорректный JSON: " + ex.getOriginalMessage()));
+        }
+        return CompletableFuture.supplyAsync(() -> generateOne(index, request, catalog), executor);
+    }
+
+    private void writeRecord(OutputStream output, CompletableFuture<BatchPlanResult> future) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(future.join()));
+        output.write('\n');
+        output.flush();
+    }
+
+    BatchPlanResult generateOne(int index, MenuRequest request, RecipeCatalog catalog) {
+        try {
+            return BatchPlanResult.success(index, menuService.generateWeeklyMenu(request, catalog));
+        } catch (RuntimeException ex) {
+            return BatchPlanResult.failure(index, describe(ex));
+        }
+    }
+
+    private static String describe(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,147 @@
+package com.planner.service;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Порядковые номера рецептов, отсортированные по калорийности, в виде параллельных примитивных массивов.
+ * Позволяет бинарным поиском найти блюда, ближайшие к калорийности слота, и расширять окно наружу.
+ * Индекс снимка арендатора — свои массивы поверх общего индекса: обход сливает оба слоя, не копируя общий.
+ */
+final class CalorieIndex {
+
+    static final CalorieIndex EMPTY = new CalorieIndex(new int[0], new int[0], null);
+
+    private final int[] calories;
+    private final int[] ordinals;
+    private final CalorieIndex base;
+
+    private CalorieIndex(int[] calories, int[] ordinals, CalorieIndex base) {
+        this.calories = calories;
+        this.ordinals = ordinals;
+        this.base = base;
+    }
+
+    static CalorieIndex of(int[] ordinals, IntUnaryOperator caloriesOf) {
+        if (ordinals.length == 0) {
+            return EMPTY;
+        }
+        // Калории в старших 32 битах, номер — в младших: сортировка long[] упорядочивает по (калории, номер)
+        long[] keys = new long[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            keys[i] = ((long) caloriesOf.applyAsInt(ordinals[i]) << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        int[] sortedCalories = new int[keys.length];
+        int[] sortedOrdinals = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedCalories[i] = (int) (keys[i] >> 32);
+            sortedOrdinals[i] = (int) keys[i];
+        }
+        return new CalorieIndex(sortedCalories, sortedOrdinals, null);
+    }
+
+    /**
+     * Слой {@code own} поверх {@code base}; общий индекс сам должен быть однослойным.
+     */
+    static CalorieIndex layered(CalorieIndex base, CalorieIndex own) {
+        if (base.size() == 0) {
+            return own;
+        }
+        if (own.size() == 0) {
+            return base;
+        }
+        return new CalorieIndex(own.calories, own.ordinals, base);
+    }
+
+    int size() {
+        return ordinals.length + (base == null ? 0 : base.size());
+    }
+
+    /**
+     * Все номера по возрастанию калорийности; для слоёного индекса собирается новый массив.
+     */
+    int[] ordinals() {
+        if (base == null) {
+            return ordinals;
+        }
+        int[] merged = new int[size()];
+        Cursor cursor = new Cursor(Integer.MIN_VALUE);
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = cursor.next();
+        }
+        return merged;
+    }
+
+    /**
+     * Обход от {@code target} наружу: рецепты выдаются по возрастанию |калории - target|.
+     */
+    Cursor nearest(int target) {
+        return new Cursor(target);
+    }
+
+    /**
+     * Первая позиция, калорийность на которой не меньше {@code target}.
+     */
+    int lowerBound(int target) {
+        int lo = 0;
+        int hi = calories.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (calories[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    final class Cursor {
+
+        private final int target;
+        private final Cursor below;
+        private int left;
+        private int right;
+
+        private Cursor(int target) {
+            this.target = target;
+            this.below = base == null ? null : base.nearest(target);
+            this.right = lowerBound(target);
+            this.left = right - 1;
+        }
+
+        boolean hasNext() {
+            return hasOwn() || below != null && below.hasNext();
+        }
+
+        /**
+         * Порядковый номер следующего по близости рецепта; при равенстве расстояний — более лёгкий.
+         */
+        int next() {
+            if (below != null && below.hasNext() && (!hasOwn() || closer(below.peekCalories(), peekCalories()))) {
+                return below.next();
+            }
+            return takeLeft() ? ordinals[left--] : ordinals[right++];
+        }
+
+        private boolean hasOwn() {
+            return left >= 0 || right < ordinals.length;
+        }
+
+        private boolean takeLeft() {
+            return right >= ordinals.length
+                    || left >= 0 && (long) target - calories[left] <= (long) calories[right] - target;
+        }
+
+        private int peekCalories() {
+            return takeLeft() ? calories[left] : calories[right];
+        }
+
+        private boolean closer(int candidate, int current) {
+            long candidateDistance = Math.abs((long) candidate - target);
+            long currentDistance = Math.abs((long) current - target);
+            return candidateDistance < currentDistance || candidateDistance == currentDistance && candidate < current;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.planner.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Нормализованный калорийный профиль запроса: суточная норма, схема приёмов пищи и калорийность слотов.
+ * Зависит только от схемы и нормы, поэтому профили с нормой до {@link #INTERNED_MAX} ккал интернируются:
+ * первый запрос создаёт экземпляр, следующие получают тот же объект без аллокаций.
+ */
+final class CalorieProfile {
+
+    static final int INTERNED_MAX = 10_000;
+
+    private static final AtomicReferenceArray<CalorieProfile> INTERNED =
+            new AtomicReferenceArray<>(MealPattern.values().length * (INTERNED_MAX + 1));
+
+    private final int targetCalories;
+    private final MealPattern pattern;
+    private final int[] slotCalories;
+
+    private CalorieProfile(int targetCalories, MealPattern pattern) {
+        this.targetCalories = targetCalories;
+        this.pattern = pattern;
+        this.slotCalories = pattern.distribute(targetCalories);
+    }
+
+    static CalorieProfile of(MealPattern pattern, int targetCalories) {
+        if (targetCalories < 0 || targetCalories > INTERNED_MAX) {
+            return new CalorieProfile(targetCalories, pattern);
+        }
+        int index = pattern.ordinal() * (INTERNED_MAX + 1) + targetCalories;
+        CalorieProfile profile = INTERNED.get(index);
+        if (profile != null) {
+            return profile;
+        }
+        CalorieProfile created = new CalorieProfile(targetCalories, pattern);
+        CalorieProfile raced = INTERNED.compareAndExchange(index, null, created);
+        return raced != null ? raced : created;
+    }
+
+    int targetCalories() {
+        return targetCalories;
+    }
+
+    MealPattern pattern() {
+        return pattern;
+    }
+
+    /**
+     * Калорийность слотов в порядке схемы. Массив общий для всех запросов с этим профилем — только для чтения.
+     */
+    int[] slotCalories() {
+        return slotCalories;
+    }
+}
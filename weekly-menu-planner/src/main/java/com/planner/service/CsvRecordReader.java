@@ -0,0 +1,158 @@
+package com.planner.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180): поля в кавычках могут содержать запятые, переводы строк и удвоенные кавычки.
+ * Читает по одной записи, не буферизуя весь файл.
+ * <p>
+ * Незакрытая кавычка портит только свою запись. Запись отбрасывается ({@link MalformedRecordException}), если кавычка
+ * не закрылась за {@link #MAX_QUOTED_LENGTH} символов или до конца файла либо за закрывающей кавычкой идёт не
+ * разделитель; чтение продолжается со строки, следующей за началом испорченной записи.
+ */
+final class CsvRecordReader {
+
+    static final int MAX_QUOTED_LENGTH = 64 * 1024;
+
+    private final Reader reader;
+    private int line = 1;
+    private int pending = -2;
+    private long recordLine;
+    // Прочитанные символы текущей записи — чтобы после ошибки перечитать всё, что идёт за её первой строкой
+    private final StringBuilder raw = new StringBuilder();
+    private String replay = "";
+    private int replayPosition;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Номер строки, с которой началась последняя прочитанная запись.
+     */
+    long recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * @return поля следующей записи или null в конце файла
+     * @throws MalformedRecordException запись испорчена; следующий вызов продолжит со следующей строки
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        raw.setLength(0);
+        raw.append((char) c);
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1 || field.length() > MAX_QUOTED_LENGTH) {
+                    throw malformed("Незакрытая кавычка в записи со строки " + recordLine);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else if (following != ',' && following != '\r' && following != '\n' && following != -1) {
+                        // За закрывающей кавычкой может идти только разделитель; иначе кавычка, скорее всего,
+                        // открывает поле следующей строки, а незакрытой была кавычка в этой записи
+                        throw malformed("Незакрытая кавычка в записи со строки " + recordLine);
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Отбрасывает запись: всё прочитанное после её первой строки будет прочитано заново.
+     */
+    private MalformedRecordException malformed(String message) {
+        int lineBreak = 0;
+        while (lineBreak < raw.length() && raw.charAt(lineBreak) != '\n' && raw.charAt(lineBreak) != '\r') {
+            lineBreak++;
+        }
+        int restart = lineBreak + 1;
+        if (lineBreak < raw.length() && raw.charAt(lineBreak) == '\r'
+                && restart < raw.length() && raw.charAt(restart) == '\n') {
+            restart++;
+        }
+        if (lineBreak < raw.length()) {
+            String unread = replay.substring(replayPosition);
+            replay = restart < raw.length() ? raw.substring(restart) + unread : unread;
+            replayPosition = 0;
+            line = (int) recordLine + 1;
+        }
+        pending = -2;
+        return new MalformedRecordException(message, recordLine);
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pending != -2) {
+            c = pending;
+            pending = -2;
+        } else if (replayPosition < replay.length()) {
+            c = replay.charAt(replayPosition++);
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        if (c != -1) {
+            raw.append((char) c);
+        }
+        return c;
+    }
+
+    /**
+     * Запись, которую нельзя разобрать; остальной файл читается дальше.
+     */
+    static final class MalformedRecordException extends IOException {
+
+        private final long line;
+
+        MalformedRecordException(String message, long line) {
+            super(message);
+            this.line = line;
+        }
+
+        long line() {
+            return line;
+        }
+    }
+}
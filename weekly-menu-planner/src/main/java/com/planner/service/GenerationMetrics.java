@@ -0,0 +1,120 @@
+package com.planner.service;
+
+import com.planner.model.MealType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики генерации меню. Таймеры фаз и распределения размеров пулов создаются заранее, счётчики нехватки
+ * кандидатов — при первом обращении и дальше берутся из своей таблицы, так что горячий путь
+ * не ищет метры в реестре на каждый слот.
+ */
+@Component
+public class GenerationMetrics {
+
+    static final String NORMALIZE = "normalize";
+    static final String FILTER = "filter";
+    /** Проход курсора по окну калорийности с раскладкой кандидатов по корзинам. */
+    static final String FETCH = "fetch";
+    /** Оценка кандидатов выбранной корзины и случайный выбор из лучших. */
+    static final String RANK = "rank";
+    static final String CANDIDATES = "candidates";
+    static final String OPTIMIZE = "optimize";
+
+    /** Для слота нет рецептов нужной диеты и типа — подбор идёт по всему каталогу. */
+    static final String NO_CANDIDATES = "no_candidates";
+    /** Все подходящие блюда уже использованы на неделе — будет повтор. */
+    static final String REPEAT = "repeat";
+    /** Подходящих блюд нет — взято блюдо без учёта предпочтений дня или исключённых ингредиентов. */
+    static final String RELAXED = "relaxed";
+
+    private final MeterRegistry registry;
+    private final Timer greedyTotal;
+    private final Timer optimizeTotal;
+    private final Map<String, Timer> phases = new HashMap<>();
+    private final Map<MealType, DistributionSummary> poolSizes = new EnumMap<>(MealType.class);
+    // Теги диеты ограничены диетами каталога, ALL и UNKNOWN, поэтому таблицы не растут без предела
+    private final Map<CounterKey, Counter> shortages = new ConcurrentHashMap<>();
+    private final Map<CounterKey, Counter> fallbacks = new ConcurrentHashMap<>();
+
+    private record CounterKey(String diet, MealType mealType, String outcome) {
+    }
+
+    public GenerationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.greedyTotal = total(registry, "GREEDY");
+        this.optimizeTotal = total(registry, "OPTIMIZE");
+        for (String phase : new String[]{NORMALIZE, FILTER, FETCH, RANK, CANDIDATES, OPTIMIZE}) {
+            phases.put(phase, Timer.builder("planner.generation.phase")
+                    .description("Время фаз генерации недельного меню")
+                    .tag("phase", phase)
+                    .register(registry));
+        }
+        for (MealType mealType : MealType.values()) {
+            poolSizes.put(mealType, DistributionSummary.builder("planner.candidates.pool")
+                    .description("Число кандидатов диеты и типа приёма пищи, доступных слоту")
+                    .tag("mealType", mealType.name())
+                    .register(registry));
+        }
+    }
+
+    private static Timer total(MeterRegistry registry, String mode) {
+        return Timer.builder("planner.generation")
+                .description("Полное время генерации недельного меню, включая обращения к кэшу планов")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    void total(boolean optimize, long startNanos) {
+        (optimize ? optimizeTotal : greedyTotal).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void phase(String phase, long startNanos) {
+        phases.get(phase).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void poolSize(MealType mealType, int size) {
+        poolSizes.get(mealType).record(size);
+    }
+
+    void shortage(RecipeCatalog catalog, String diet, MealType mealType, String outcome) {
+        shortages.computeIfAbsent(new CounterKey(dietTag(catalog, diet), mealType, outcome),
+                key -> Counter.builder("planner.candidates.shortage")
+                        .description("Слоты, для которых не хватило подходящих блюд")
+                        .tag("diet", key.diet())
+                        .tag("mealType", key.mealType().name())
+                        .tag("outcome", key.outcome())
+                        .register(registry))
+                .increment();
+    }
+
+    void fallback(RecipeCatalog catalog, String diet, MealType mealType) {
+        fallbacks.computeIfAbsent(new CounterKey(dietTag(catalog, diet), mealType, null),
+                key -> Counter.builder("planner.generation.fallback")
+                        .description("Слоты, заполненные заглушкой «Добавьте больше рецептов»")
+                        .tag("diet", key.diet())
+                        .tag("mealType", key.mealType().name())
+                        .register(registry))
+                .increment();
+    }
+
+    /**
+     * Диета из запроса — произвольная строка; в теги попадают только диеты каталога, чтобы не плодить серии.
+     */
+    private static String dietTag(RecipeCatalog catalog, String diet) {
+        if (diet == null || diet.isBlank() || "ALL".equalsIgnoreCase(diet)) {
+            return "ALL";
+        }
+        return catalog.hasDiet(diet) ? diet.toUpperCase(Locale.ROOT) : "UNKNOWN";
+    }
+}
@@ -0,0 +1,74 @@
+package com.planner.service;
+
+import com.planner.dto.MenuRequest;
+import com.planner.model.MealType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Схема приёмов пищи на день. Схем всего три, поэтому доли суточной калорийности по слотам
+ * считаются один раз при загрузке класса, а не на каждый день каждого запроса.
+ */
+enum MealPattern {
+    THREE(MealType.BREAKFAST, MealType.LUNCH, MealType.DINNER),
+    FOUR(MealType.BREAKFAST, MealType.SNACK, MealType.LUNCH, MealType.DINNER),
+    FIVE(MealType.BREAKFAST, MealType.SNACK, MealType.LUNCH, MealType.SNACK, MealType.DINNER);
+
+    private final List<MealType> mealTypes;
+    private final double[] shares;
+
+    MealPattern(MealType... mealTypes) {
+        this.mealTypes = List.of(mealTypes);
+        long snacks = Arrays.stream(mealTypes).filter(type -> type == MealType.SNACK).count();
+        double snackRatio = snacks > 1 ? 0.1 : 0.15;
+        double[] ratios = Arrays.stream(mealTypes)
+                .mapToDouble(type -> switch (type) {
+                    case BREAKFAST -> 0.28;
+                    case LUNCH -> 0.37;
+                    case DINNER -> 0.25;
+                    case SNACK -> snackRatio;
+                })
+                .toArray();
+        // Сумма через DoubleStream, как и раньше, — доли и калорийность слотов совпадают до бита
+        double total = Arrays.stream(ratios).sum();
+        this.shares = new double[ratios.length];
+        for (int i = 0; i < ratios.length; i++) {
+            shares[i] = ratios[i] / total;
+        }
+    }
+
+    /**
+     * @param request нормализованный запрос
+     */
+    static MealPattern of(MenuRequest request) {
+        int meals = request.getMealsPerDay();
+        if (Boolean.TRUE.equals(request.getIncludeSnack()) && meals < 4) {
+            meals = 4;
+        }
+        return switch (meals) {
+            case 5 -> FIVE;
+            case 4 -> FOUR;
+            default -> THREE;
+        };
+    }
+
+    List<MealType> mealTypes() {
+        return mealTypes;
+    }
+
+    int size() {
+        return shares.length;
+    }
+
+    /**
+     * Калорийность каждого слота при суточной норме {@code targetCalories}.
+     */
+    int[] distribute(int targetCalories) {
+        int[] distribution = new int[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            distribution[i] = (int) Math.round(targetCalories * shares[i]);
+        }
+        return distribution;
+    }
+}
@@ -3,17 +3,23 @@ package com.planner.service;
 import com.planner.dto.DayPreference;
 import com.planner.dto.MenuPlanResponse;
 import com.planner.dto.MenuRequest;
+import com.planner.model.Activity;
+import com.planner.model.Gender;
+import com.planner.model.Goal;
 import com.planner.model.MealType;
 import com.planner.model.Recipe;
-import com.planner.repository.RecipeRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,34 +29,136 @@ public class MenuGeneratorService {
             "Понедельник", "Вторник", "Среда",
             "Четверг", "Пятница", "Суббота", "Воскресенье"
     };
+    /**
+     * Сколько ближайших по калорийности кандидатов рассматривается для слота; пул случайного выбора — половина окна.
+     * Пока подходящих кандидатов меньше окна, пул — лучшая половина всех подходящих, как и при полном переборе;
+     * в больших каталогах блюдо выбирается из 16 ближайших по калорийности, а не из половины всего каталога.
+     */
+    private static final int WINDOW_SIZE = 32;
+    /**
+     * После стольких просмотренных кандидатов обход от калорийности слота останавливается: при редких подходящих
+     * блюдах (узкие предпочтения дня, строгая диета) не перебираем весь индекс на каждый слот. Если за это время
+     * подходящих не нашлось, берём ближайшие по калорийности из просмотренных — корзины «прочих».
+     */
+    private static final int SCAN_LIMIT = 64 * WINDOW_SIZE;
+    private static final int BUCKET_COUNT = 4;
+    private static final int OPTIMIZER_POOL_SIZE = 64;
+    private static final String MODE_OPTIMIZE = "OPTIMIZE";
     private static final DateTimeFormatter WEEK_FORMAT = DateTimeFormatter.ofPattern("YYYY-'W'ww");
+    private static final Pattern WEEK_WITHOUT_DAY = Pattern.compile(".*-W\\d{1,2}$");
+
+    private final RecipeCatalogService catalogService;
+    private final PlanResultCache planCache;
+    private final WeeklyPlanOptimizer optimizer;
+    private final GenerationMetrics metrics;
+
+    public MenuGeneratorService(RecipeCatalogService catalogService,
+                                PlanResultCache planCache,
+                                WeeklyPlanOptimizer optimizer,
+                                GenerationMetrics metrics) {
+        this.catalogService = catalogService;
+        this.planCache = planCache;
+        this.optimizer = optimizer;
+        this.metrics = metrics;
+    }
 
-    private final RecipeRepository recipeRepository;
+    public MenuPlanResponse generateWeeklyMenu(MenuRequest rawRequest) {
+        return generateWeeklyMenu(rawRequest, catalogService.current());
+    }
 
-    public MenuGeneratorService(RecipeRepository recipeRepository) {
-        this.recipeRepository = recipeRepository;
+    public MenuPlanResponse generateWeeklyMenu(MenuRequest rawRequest, RecipeCatalog catalog) {
+        long start = System.nanoTime();
+        MenuRequest request = normalize(rawRequest);
+        metrics.phase(GenerationMetrics.NORMALIZE, start);
+        try {
+            if (!isDeterministic(request)) {
+                return buildWeeklyMenu(request, catalog);
+            }
+            // С weekId жадная генерация детерминирована — одинаковые профили получают один и тот же план
+            PlanCacheKey key = PlanCacheKey.of(request, catalog.getVersion());
+            return planCache.get(key, () -> buildWeeklyMenu(request, catalog));
+        } finally {
+            metrics.total(MODE_OPTIMIZE.equalsIgnoreCase(request.getMode()), start);
+        }
     }
 
-    public MenuPlanResponse generateWeeklyMenu(MenuRequest rawRequest) {
+    /**
+     * Отпечаток плана, который вернёт {@link #generateWeeklyMenu(MenuRequest, RecipeCatalog)} для того же
+     * запроса и снимка, — основа ETag. null, если план не детерминирован: без weekId или в режиме OPTIMIZE,
+     * где результат зависит от лимита времени.
+     */
+    public String planFingerprint(MenuRequest rawRequest, RecipeCatalog catalog) {
         MenuRequest request = normalize(rawRequest);
-        int targetCalories = calculateTargetCalories(request);
-        Map<String, List<Recipe>> plan = new LinkedHashMap<>();
-        Set<Long> usedIds = new HashSet<>();
-        int weeklyCalories = 0;
+        if (!isDeterministic(request)) {
+            return null;
+        }
+        String key = PlanCacheKey.of(request, catalog.getVersion()).toString();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Одинаковый ли план получат одинаковые запросы: только тогда план кэшируется и получает ETag.
+     */
+    private static boolean isDeterministic(MenuRequest request) {
+        return StringUtils.hasText(request.getWeekId()) && !MODE_OPTIMIZE.equalsIgnoreCase(request.getMode());
+    }
+
+    /**
+     * План в обход кэша — для заранее считаемых шаблонов {@link PlanPrewarmer}.
+     */
+    MenuPlanResponse buildPlan(MenuRequest rawRequest, RecipeCatalog catalog) {
+        return buildWeeklyMenu(normalize(rawRequest), catalog);
+    }
+
+    private MenuPlanResponse buildWeeklyMenu(MenuRequest request, RecipeCatalog catalog) {
+        long generationStart = System.nanoTime();
+        CalorieProfile calories = calorieProfile(request);
         Map<String, DayPreference> preferenceMap = buildPreferenceMap(request);
         Random baseRandom = buildRandom(request.getWeekId());
+        long filterStart = System.nanoTime();
+        BitSet excluded = excludedRecipes(catalog, request.getExcludedIngredients());
+        metrics.phase(GenerationMetrics.FILTER, filterStart);
+
+        Map<String, List<Recipe>> plan = MODE_OPTIMIZE.equalsIgnoreCase(request.getMode())
+                ? optimizeWeek(catalog, request, calories, excluded, preferenceMap, baseRandom,
+                        optimizer.deadline(generationStart))
+                : buildGreedyWeek(catalog, request, calories, excluded, preferenceMap, baseRandom);
+        return summarize(plan, calories.targetCalories(), request);
+    }
 
-        for (String day : DAYS) {
-            DayPreference preference = preferenceMap.get(day);
-            Random dayRandom = new Random(baseRandom.nextLong());
-            List<Recipe> dailyMeals = buildDailyMeals(request, targetCalories, usedIds, preference, dayRandom);
-            plan.put(day, dailyMeals);
-            weeklyCalories += dailyMeals.stream()
-                    .map(Recipe::getCalories)
-                    .filter(Objects::nonNull)
-                    .mapToInt(Integer::intValue)
-                    .sum();
+    /**
+     * Суточная норма и калорийность слотов для нормализованного запроса; интернированный объект.
+     */
+    CalorieProfile calorieProfile(MenuRequest request) {
+        return CalorieProfile.of(MealPattern.of(request), calculateTargetCalories(request));
+    }
+
+    /**
+     * Ответ с недельными суммами по готовому плану. Белок и бюджет оптимизатор только штрафует,
+     * поэтому выполнение заданных ограничений проверяется по самому плану.
+     */
+    MenuPlanResponse summarize(Map<String, List<Recipe>> plan, int targetCalories, MenuRequest request) {
+        int weeklyCalories = 0;
+        int weeklyProtein = 0;
+        int weeklyPrice = 0;
+        int minDayProtein = Integer.MAX_VALUE;
+        for (List<Recipe> meals : plan.values()) {
+            int dayProtein = 0;
+            for (Recipe recipe : meals) {
+                weeklyCalories += recipe.getCalories() == null ? 0 : recipe.getCalories();
+                dayProtein += recipe.getProtein() == null ? 0 : recipe.getProtein();
+                weeklyPrice += recipe.getPrice() == null ? 0 : recipe.getPrice();
+            }
+            weeklyProtein += dayProtein;
+            minDayProtein = Math.min(minDayProtein, dayProtein);
         }
+        Integer minProtein = request.getMinDailyProtein();
+        Integer budget = request.getWeeklyBudget();
 
         int averageDailyCalories = plan.isEmpty() ? 0 : weeklyCalories / DAYS.length;
 
@@ -59,17 +167,131 @@ public class MenuGeneratorService {
                 .targetCalories(targetCalories)
                 .averageDailyCalories(averageDailyCalories)
                 .weeklyCalories(weeklyCalories)
+                .weeklyProtein(weeklyProtein)
+                .weeklyPrice(weeklyPrice)
+                .proteinTargetMet(minProtein == null ? null : !plan.isEmpty() && minDayProtein >= minProtein)
+                .budgetMet(budget == null ? null : weeklyPrice <= budget)
                 .profile(request)
                 .build();
     }
 
+    private Map<String, List<Recipe>> buildGreedyWeek(RecipeCatalog catalog,
+                                                      MenuRequest request,
+                                                      CalorieProfile calories,
+                                                      BitSet excluded,
+                                                      Map<String, DayPreference> preferenceMap,
+                                                      Random baseRandom) {
+        Map<String, List<Recipe>> plan = new LinkedHashMap<>();
+        UsedRecipes used = UsedRecipes.forCurrentThread(catalog.size());
+        for (String day : DAYS) {
+            DayPreference preference = preferenceMap.get(day);
+            Random dayRandom = new Random(baseRandom.nextLong());
+            plan.put(day, buildDailyMeals(catalog, request, calories, used, excluded, preference, dayRandom));
+        }
+        return plan;
+    }
+
+    /**
+     * Режим OPTIMIZE: для каждого слота берётся окно ближайших по калорийности подходящих блюд,
+     * а выбор по всей неделе сразу делает {@link WeeklyPlanOptimizer}.
+     */
+    private Map<String, List<Recipe>> optimizeWeek(RecipeCatalog catalog,
+                                                   MenuRequest request,
+                                                   CalorieProfile calories,
+                                                   BitSet excluded,
+                                                   Map<String, DayPreference> preferenceMap,
+                                                   Random baseRandom,
+                                                   long deadline) {
+        List<MealType> pattern = calories.pattern().mealTypes();
+        int[] distribution = calories.slotCalories();
+        int[][][] pools = new int[DAYS.length][pattern.size()][];
+        for (int d = 0; d < DAYS.length; d++) {
+            DayPreference preference = preferenceMap.get(DAYS[d]);
+            long start = System.nanoTime();
+            PreferenceFilter filter = PreferenceFilter.of(catalog, preference);
+            metrics.phase(GenerationMetrics.FILTER, start);
+            start = System.nanoTime();
+            for (int s = 0; s < pattern.size(); s++) {
+                pools[d][s] = slotCandidates(catalog, request, pattern.get(s), distribution[s],
+                        excluded, preference, filter);
+            }
+            metrics.phase(GenerationMetrics.CANDIDATES, start);
+        }
+
+        int minProtein = request.getMinDailyProtein() == null ? 0 : request.getMinDailyProtein();
+        int budget = request.getWeeklyBudget() == null ? 0 : request.getWeeklyBudget();
+        long start = System.nanoTime();
+        int[][] solution = optimizer.optimize(catalog, pools, distribution, calories.targetCalories(), minProtein, budget,
+                deadline, new Random(baseRandom.nextLong()));
+        metrics.phase(GenerationMetrics.OPTIMIZE, start);
+
+        Map<String, List<Recipe>> plan = new LinkedHashMap<>();
+        for (int d = 0; d < DAYS.length; d++) {
+            List<Recipe> meals = new ArrayList<>(pattern.size());
+            for (int s = 0; s < pattern.size(); s++) {
+                if (solution[d][s] >= 0) {
+                    meals.add(catalog.recipe(solution[d][s]));
+                } else {
+                    metrics.fallback(catalog, effectiveDiet(request.getDiet(), preferenceMap.get(DAYS[d])),
+                            pattern.get(s));
+                    meals.add(fallbackRecipe(pattern.get(s)));
+                }
+            }
+            plan.put(DAYS[d], meals);
+        }
+        return plan;
+    }
+
+    /**
+     * До {@link #OPTIMIZER_POOL_SIZE} ближайших к калорийности слота подходящих рецептов;
+     * если подходящих нет — ближайшие из всех кандидатов слота.
+     */
+    private int[] slotCandidates(RecipeCatalog catalog,
+                                 MenuRequest request,
+                                 MealType mealType,
+                                 int mealCalories,
+                                 BitSet excluded,
+                                 DayPreference preference,
+                                 PreferenceFilter filter) {
+        CalorieIndex candidates = getCandidatesFor(catalog, request.getDiet(), mealType, preference);
+        metrics.poolSize(mealType, candidates.size());
+        if (candidates.size() == 0) {
+            metrics.shortage(catalog, effectiveDiet(request.getDiet(), preference), mealType,
+                    GenerationMetrics.NO_CANDIDATES);
+            candidates = catalog.allCandidates();
+        }
+        int[] eligible = new int[Math.min(OPTIMIZER_POOL_SIZE, candidates.size())];
+        int[] others = new int[eligible.length];
+        int eligibleCount = 0;
+        int otherCount = 0;
+        RecipeColumns columns = catalog.columns();
+        CalorieIndex.Cursor cursor = candidates.nearest(mealCalories);
+        int scanned = 0;
+        while (eligibleCount < eligible.length && cursor.hasNext() && scanned++ < SCAN_LIMIT) {
+            int ordinal = cursor.next();
+            if (columns.fitsMealType(ordinal, mealType) && filter.matches(ordinal) && !excluded.get(ordinal)) {
+                eligible[eligibleCount++] = ordinal;
+            } else if (otherCount < others.length) {
+                others[otherCount++] = ordinal;
+            }
+        }
+        if (eligibleCount > 0) {
+            return Arrays.copyOf(eligible, eligibleCount);
+        }
+        if (otherCount > 0) {
+            metrics.shortage(catalog, effectiveDiet(request.getDiet(), preference), mealType,
+                    GenerationMetrics.RELAXED);
+        }
+        return Arrays.copyOf(others, otherCount);
+    }
+
     private Random buildRandom(String weekId) {
         if (!StringUtils.hasText(weekId)) {
             return new Random();
         }
         String normalized = weekId.trim().toUpperCase(Locale.ROOT);
         try {
-            String isoWeekId = normalized.matches(".*-W\\d{1,2}$")
+            String isoWeekId = WEEK_WITHOUT_DAY.matcher(normalized).matches()
                     ? normalized + "-1"
                     : normalized;
             LocalDate weekStart = LocalDate.parse(isoWeekId, DateTimeFormatter.ISO_WEEK_DATE);
@@ -81,6 +303,9 @@ public class MenuGeneratorService {
     }
 
     private Map<String, DayPreference> buildPreferenceMap(MenuRequest request) {
+        if (request.getDayPreferences().isEmpty()) {
+            return Map.of();
+        }
         return request.getDayPreferences().stream()
                 .filter(Objects::nonNull)
                 .filter(DayPreference::isActive)
@@ -93,23 +318,32 @@ public class MenuGeneratorService {
                 ));
     }
 
-    private MenuRequest normalize(MenuRequest request) {
+    MenuRequest normalize(MenuRequest request) {
         if (request == null) {
             return new MenuRequest();
         }
-        if (request.getDiet() == null) request.setDiet("ALL");
-        if (request.getGender() == null) request.setGender("FEMALE");
+        request.setDiet(normalizeDiet(request.getDiet()));
+        if (request.getGender() == null) request.setGender(Gender.FEMALE);
         if (request.getAge() == null || request.getAge() <= 0) request.setAge(30);
         if (request.getHeight() == null || request.getHeight() <= 0) request.setHeight(165.0);
         if (request.getWeight() == null || request.getWeight() <= 0) request.setWeight(60.0);
-        if (request.getActivity() == null) request.setActivity("MODERATE");
-        if (request.getGoal() == null) request.setGoal("MAINTAIN");
+        if (request.getActivity() == null) request.setActivity(Activity.MODERATE);
+        if (request.getGoal() == null) request.setGoal(Goal.MAINTAIN);
         if (request.getMealsPerDay() == null || request.getMealsPerDay() < 3) request.setMealsPerDay(3);
         if (request.getMealsPerDay() > 5) request.setMealsPerDay(5);
         if (request.getIncludeSnack() == null) request.setIncludeSnack(Boolean.FALSE);
+        if (request.getMode() == null) request.setMode("GREEDY");
         return request;
     }
 
+    /**
+     * Диета в каноническом виде: каталог сравнивает диеты без учёта регистра, поэтому и ключи кэша планов
+     * для "vegan" и "VEGAN" должны совпадать.
+     */
+    static String normalizeDiet(String diet) {
+        return diet == null ? "ALL" : diet.toUpperCase(Locale.ROOT);
+    }
+
     private int calculateTargetCalories(MenuRequest request) {
         Integer manual = request.getManualCalories();
         if (manual != null) {
@@ -119,138 +353,168 @@ public class MenuGeneratorService {
         double weight = request.getWeight();
         double height = request.getHeight();
         int age = request.getAge();
-        boolean isMale = "MALE".equalsIgnoreCase(request.getGender());
+        boolean isMale = request.getGender() == Gender.MALE;
 
-        if ("REGULAR".equalsIgnoreCase(request.getDiet())
-                && "MAINTAIN".equalsIgnoreCase(request.getGoal())) {
+        if ("REGULAR".equalsIgnoreCase(request.getDiet()) && request.getGoal() == Goal.MAINTAIN) {
             return isMale ? 2200 : 1500;
         }
 
         double bmr = 10 * weight + 6.25 * height - 5 * age + (isMale ? 5 : -161);
-        double activityFactor = switch (request.getActivity().toUpperCase(Locale.ROOT)) {
-            case "LOW" -> 1.2;
-            case "ACTIVE" -> 1.55;
-            case "VERY_ACTIVE" -> 1.725;
-            default -> 1.375; // MODERATE
-        };
-        double goalFactor = switch (request.getGoal().toUpperCase(Locale.ROOT)) {
-            case "LOSE" -> 0.85;
-            case "GAIN" -> 1.15;
-            default -> 1.0;
-        };
-
-        return (int) Math.round(bmr * activityFactor * goalFactor);
+        return (int) Math.round(bmr * request.getActivity().getFactor() * request.getGoal().getFactor());
     }
 
-    private List<Recipe> buildDailyMeals(MenuRequest request,
-                                         int targetCalories,
-                                         Set<Long> usedIds,
+    private List<Recipe> buildDailyMeals(RecipeCatalog catalog,
+                                         MenuRequest request,
+                                         CalorieProfile calories,
+                                         UsedRecipes used,
+                                         BitSet excluded,
                                          DayPreference preference,
                                          Random random) {
-        List<MealType> pattern = determinePattern(request);
-        int[] distribution = distributeCalories(targetCalories, pattern);
         Random randomSource = random != null ? random : new Random();
+        long start = System.nanoTime();
+        PreferenceFilter filter = PreferenceFilter.of(catalog, preference);
+        metrics.phase(GenerationMetrics.FILTER, start);
 
-        List<Recipe> meals = new ArrayList<>();
-        for (int i = 0; i < pattern.size(); i++) {
-            MealType mealType = pattern.get(i);
-            Recipe recipe = pickRecipeForMeal(request, mealType, distribution[i], usedIds, preference, randomSource);
-            if (recipe != null) {
-                meals.add(recipe);
-                if (recipe.getId() != null) {
-                    usedIds.add(recipe.getId());
-                }
-            }
-        }
-        return meals;
+        // Фазы fetch и rank записываются для каждого слота в pickRecipeForMeal
+        return fillSlots(catalog, request, calories.pattern().mealTypes(), calories.slotCalories(),
+                used, excluded, preference, filter, randomSource);
     }
 
-    private List<MealType> determinePattern(MenuRequest request) {
-        int meals = request.getMealsPerDay();
-        if (Boolean.TRUE.equals(request.getIncludeSnack()) && meals < 4) {
-            meals = 4;
+    /**
+     * Повторный подбор блюд для слотов одного дня сохранённого плана: калорийность слотов берётся
+     * из плана, а блюда из {@code usedIds} не повторяются, пока есть альтернативы. Выбор случаен
+     * и при заданном weekId — иначе замена вернула бы то же самое блюдо.
+     *
+     * @param day          название дня, по нему выбираются предпочтения дня
+     * @param slotCalories калорийность каждого слота
+     * @param usedIds      id блюд остальной недели и заменяемых блюд
+     * @return по блюду на слот, в порядке слотов
+     */
+    public List<Recipe> pickMeals(MenuRequest rawRequest,
+                                  RecipeCatalog catalog,
+                                  String day,
+                                  List<MealType> mealTypes,
+                                  int[] slotCalories,
+                                  Collection<Long> usedIds) {
+        MenuRequest request = normalize(rawRequest);
+        DayPreference preference = buildPreferenceMap(request).get(day);
+        BitSet excluded = excludedRecipes(catalog, request.getExcludedIngredients());
+        UsedRecipes used = UsedRecipes.forCurrentThread(catalog.size());
+        for (Long id : usedIds) {
+            int ordinal = id == null ? -1 : catalog.ordinalOf(id);
+            if (ordinal >= 0) {
+                used.add(ordinal);
+            }
         }
-        return switch (meals) {
-            case 5 -> List.of(MealType.BREAKFAST, MealType.SNACK, MealType.LUNCH, MealType.SNACK, MealType.DINNER);
-            case 4 -> List.of(MealType.BREAKFAST, MealType.SNACK, MealType.LUNCH, MealType.DINNER);
-            default -> List.of(MealType.BREAKFAST, MealType.LUNCH, MealType.DINNER);
-        };
+        return fillSlots(catalog, request, mealTypes, slotCalories, used, excluded, preference,
+                PreferenceFilter.of(catalog, preference), new Random());
     }
 
-    private int[] distributeCalories(int targetCalories, List<MealType> pattern) {
-        double snackRatio = pattern.stream().filter(type -> type == MealType.SNACK).count() > 1 ? 0.1 : 0.15;
-        List<Double> ratios = pattern.stream()
-                .map(type -> switch (type) {
-                    case BREAKFAST -> 0.28;
-                    case LUNCH -> 0.37;
-                    case DINNER -> 0.25;
-                    case SNACK -> snackRatio;
-                })
-                .collect(Collectors.toList());
-
-        double total = ratios.stream().mapToDouble(Double::doubleValue).sum();
-        int[] distribution = new int[ratios.size()];
-        for (int i = 0; i < ratios.size(); i++) {
-            distribution[i] = (int) Math.round(targetCalories * (ratios.get(i) / total));
+    private List<Recipe> fillSlots(RecipeCatalog catalog,
+                                   MenuRequest request,
+                                   List<MealType> mealTypes,
+                                   int[] slotCalories,
+                                   UsedRecipes used,
+                                   BitSet excluded,
+                                   DayPreference preference,
+                                   PreferenceFilter filter,
+                                   Random random) {
+        List<Recipe> meals = new ArrayList<>(mealTypes.size());
+        for (int i = 0; i < mealTypes.size(); i++) {
+            MealType mealType = mealTypes.get(i);
+            int ordinal = pickRecipeForMeal(catalog, request, mealType, slotCalories[i], used,
+                    excluded, preference, filter, random);
+            if (ordinal < 0) {
+                meals.add(fallbackRecipe(mealType));
+            } else {
+                meals.add(catalog.recipe(ordinal));
+                used.add(ordinal);
+            }
         }
-        return distribution;
+        return meals;
     }
 
-    private Recipe pickRecipeForMeal(MenuRequest request,
-                                     MealType mealType,
-                                     int mealCalories,
-                                     Set<Long> usedIds,
-                                     DayPreference preference,
-                                     Random random) {
-
-        List<Recipe> candidates = getCandidatesFor(request.getDiet(), mealType, preference);
+    /**
+     * Порядковый номер блюда для слота или -1, если в каталоге нет ни одного кандидата.
+     */
+    int pickRecipeForMeal(RecipeCatalog catalog,
+                          MenuRequest request,
+                          MealType mealType,
+                          int mealCalories,
+                          UsedRecipes used,
+                          BitSet excluded,
+                          DayPreference preference,
+                          PreferenceFilter filter,
+                          Random random) {
+        long start = System.nanoTime();
+        CalorieIndex candidates = getCandidatesFor(catalog, request.getDiet(), mealType, preference);
+        metrics.poolSize(mealType, candidates.size());
+
+        if (candidates.size() == 0) {
+            metrics.shortage(catalog, effectiveDiet(request.getDiet(), preference), mealType,
+                    GenerationMetrics.NO_CANDIDATES);
+            candidates = catalog.allCandidates();
+        }
 
-        if (candidates.isEmpty()) {
-            candidates = recipeRepository.findAll();
+        // Идём от калорийности слота наружу и раскладываем кандидатов по корзинам в порядке приоритета:
+        // подходящие и неиспользованные, подходящие, прочие неиспользованные, прочие.
+        // Как только первая корзина заполнена, дальше смотреть незачем.
+        TopKSelector selector = TopKSelector.forCurrentThread(BUCKET_COUNT * WINDOW_SIZE);
+        int[] buffer = selector.ordinals();
+        int[] bucketSizes = new int[BUCKET_COUNT];
+        RecipeColumns columns = catalog.columns();
+        CalorieIndex.Cursor cursor = candidates.nearest(mealCalories);
+        int scanned = 0;
+        while (bucketSizes[0] < WINDOW_SIZE && cursor.hasNext() && scanned++ < SCAN_LIMIT) {
+            int ordinal = cursor.next();
+            boolean eligible = columns.fitsMealType(ordinal, mealType)
+                    && filter.matches(ordinal)
+                    && !excluded.get(ordinal);
+            int bucket = (eligible ? 0 : 2) + (used.contains(ordinal) ? 1 : 0);
+            if (bucketSizes[bucket] < WINDOW_SIZE) {
+                buffer[bucket * WINDOW_SIZE + bucketSizes[bucket]++] = ordinal;
+            }
         }
 
-        List<Recipe> filtered = candidates.stream()
-                .filter(Objects::nonNull)
-                .filter(recipe -> recipe.getMealType() == null || recipe.getMealType() == mealType)
-                .filter(recipe -> matchesPreference(recipe, preference))
-                .filter(recipe -> !containsExcludedIngredient(recipe, request.getExcludedIngredients()))
-                .collect(Collectors.toList());
+        metrics.phase(GenerationMetrics.FETCH, start);
 
-        if (filtered.isEmpty()) {
-            filtered = candidates;
+        start = System.nanoTime();
+        int bucket = 0;
+        while (bucket < BUCKET_COUNT && bucketSizes[bucket] == 0) {
+            bucket++;
         }
-
-        List<Recipe> unused = filtered.stream()
-                .filter(recipe -> recipe.getId() == null || !usedIds.contains(recipe.getId()))
-                .collect(Collectors.toList());
-        if (!unused.isEmpty()) {
-            filtered = unused;
+        if (bucket == BUCKET_COUNT) {
+            metrics.fallback(catalog, effectiveDiet(request.getDiet(), preference), mealType);
+            metrics.phase(GenerationMetrics.RANK, start);
+            return -1;
+        }
+        if (bucket > 0) {
+            metrics.shortage(catalog, effectiveDiet(request.getDiet(), preference), mealType,
+                    bucket == 1 ? GenerationMetrics.REPEAT : GenerationMetrics.RELAXED);
         }
 
-        Random randomSource = random != null ? random : new Random();
-        Collections.shuffle(filtered, randomSource);
-
-        List<Recipe> ranked = filtered.stream()
-                .sorted(Comparator.comparingInt(r -> scoreRecipe(r, mealCalories, usedIds)))
-                .collect(Collectors.toList());
-
-        if (ranked.isEmpty()) {
-            return fallbackRecipe(mealType);
+        // Заполненная корзина означает, что кандидатов не меньше WINDOW_SIZE, и пул — половина окна
+        int size = bucketSizes[bucket];
+        System.arraycopy(buffer, bucket * WINDOW_SIZE, buffer, 0, size);
+        int[] scores = selector.scores();
+        for (int i = 0; i < size; i++) {
+            scores[i] = scoreRecipe(columns, buffer[i], mealCalories, used);
         }
 
-        int poolSize = Math.min(ranked.size(), Math.max(2, ranked.size() / 2));
-        int pickIndex = randomSource.nextInt(poolSize);
-        return ranked.get(pickIndex);
+        Random randomSource = random != null ? random : new Random();
+        int poolSize = Math.min(size, Math.max(2, size / 2));
+        selector.selectSmallest(size, poolSize, randomSource);
+        int picked = buffer[randomSource.nextInt(poolSize)];
+        metrics.phase(GenerationMetrics.RANK, start);
+        return picked;
     }
 
-    private int scoreRecipe(Recipe recipe, int targetCalories, Set<Long> usedIds) {
-        int calories = recipe.getCalories() == null ? 0 : recipe.getCalories();
-        int diff = Math.abs(calories - targetCalories);
-        boolean alreadyUsed = recipe.getId() != null && usedIds.contains(recipe.getId());
-        return diff + (alreadyUsed ? 500 : 0);
+    private int scoreRecipe(RecipeColumns columns, int ordinal, int targetCalories, UsedRecipes used) {
+        int diff = Math.abs(columns.calories(ordinal) - targetCalories);
+        return diff + (used.contains(ordinal) ? 500 : 0);
     }
 
-    private Recipe fallbackRecipe(MealType mealType) {
+    Recipe fallbackRecipe(MealType mealType) {
         return Recipe.builder()
                 .title("Добавьте больше рецептов")
                 .description("Недостаточно блюд для подбора этого приёма пищи.")
@@ -260,57 +524,24 @@ public class MenuGeneratorService {
                 .build();
     }
 
-    private List<Recipe> getCandidatesFor(String diet, MealType mealType, DayPreference preference) {
-        String effectiveDiet = preference != null && StringUtils.hasText(preference.getPreferredDiet())
-                ? preference.getPreferredDiet()
-                : diet;
-
+    private CalorieIndex getCandidatesFor(RecipeCatalog catalog,
+                                          String diet,
+                                          MealType mealType,
+                                          DayPreference preference) {
+        String effectiveDiet = effectiveDiet(diet, preference);
         if (!StringUtils.hasText(effectiveDiet) || "ALL".equalsIgnoreCase(effectiveDiet)) {
-            return recipeRepository.findByMealType(mealType);
+            return catalog.candidatesByMealType(mealType);
         }
-        return recipeRepository.findByDietTypeIgnoreCaseAndMealType(effectiveDiet, mealType);
+        return catalog.candidatesByDietAndMealType(effectiveDiet, mealType);
     }
 
-    private boolean matchesPreference(Recipe recipe, DayPreference preference) {
-        if (preference == null || !preference.isActive()) {
-            return true;
-        }
-
-        if (StringUtils.hasText(preference.getPreferredCuisine())
-                && (recipe.getCuisine() == null
-                || !recipe.getCuisine().equalsIgnoreCase(preference.getPreferredCuisine()))) {
-            return false;
-        }
-
-        if (!preference.getKeywords().isEmpty()) {
-            String haystack = (recipe.getTitle() + " "
-                    + Optional.ofNullable(recipe.getDescription()).orElse("") + " "
-                    + Optional.ofNullable(recipe.getIngredients()).orElse(""))
-                    .toLowerCase(Locale.ROOT);
-            boolean keywordMatch = preference.getKeywords().stream()
-                    .filter(StringUtils::hasText)
-                    .map(word -> word.toLowerCase(Locale.ROOT))
-                    .anyMatch(haystack::contains);
-            if (!keywordMatch) {
-                return false;
-            }
-        }
-
-        return true;
+    private static String effectiveDiet(String diet, DayPreference preference) {
+        return preference != null && StringUtils.hasText(preference.getPreferredDiet())
+                ? preference.getPreferredDiet()
+                : diet;
     }
 
-    private boolean containsExcludedIngredient(Recipe recipe, List<String> excluded) {
-        if (excluded == null || excluded.isEmpty()) {
-            return false;
-        }
-        String ingredients = recipe.getIngredients();
-        if (!StringUtils.hasText(ingredients)) {
-            return false;
-        }
-        String normalized = ingredients.toLowerCase(Locale.ROOT);
-        return excluded.stream()
-                .filter(StringUtils::hasText)
-                .map(item -> item.toLowerCase(Locale.ROOT))
-                .anyMatch(normalized::contains);
+    BitSet excludedRecipes(RecipeCatalog catalog, List<String> excludedIngredients) {
+        return catalog.withAnyIngredient(excludedIngredients);
     }
 }
@@ -0,0 +1,120 @@
+package com.planner.service;
+
+import com.planner.dto.DayPreference;
+import com.planner.dto.MenuRequest;
+import com.planner.model.Activity;
+import com.planner.model.Gender;
+import com.planner.model.Goal;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Неизменяемый ключ кэша планов и схлопывания запросов: нормализованный профиль + версия каталога.
+ * Копирует поля запроса, чтобы последующие изменения DTO не портили ключ.
+ */
+record PlanCacheKey(String diet,
+                    Gender gender,
+                    Integer age,
+                    Double height,
+                    Double weight,
+                    Activity activity,
+                    Goal goal,
+                    Integer mealsPerDay,
+                    Boolean includeSnack,
+                    List<String> excludedIngredients,
+                    List<PreferenceKey> dayPreferences,
+                    Integer manualCalories,
+                    String weekId,
+                    String mode,
+                    Integer minDailyProtein,
+                    Integer weeklyBudget,
+                    long catalogVersion) {
+
+    record PreferenceKey(String day, String preferredDiet, String preferredCuisine, List<String> keywords) {
+
+        static PreferenceKey of(DayPreference preference) {
+            if (preference == null) {
+                return null;
+            }
+            return new PreferenceKey(preference.getDay(), preference.getPreferredDiet(),
+                    preference.getPreferredCuisine(), List.copyOf(nonNull(preference.getKeywords())));
+        }
+
+        DayPreference toPreference() {
+            DayPreference preference = new DayPreference();
+            preference.setDay(day);
+            preference.setPreferredDiet(preferredDiet);
+            preference.setPreferredCuisine(preferredCuisine);
+            preference.setKeywords(keywords);
+            return preference;
+        }
+    }
+
+    /**
+     * @param request уже нормализованный запрос
+     */
+    static PlanCacheKey of(MenuRequest request, long catalogVersion) {
+        return new PlanCacheKey(
+                request.getDiet(),
+                request.getGender(),
+                request.getAge(),
+                request.getHeight(),
+                request.getWeight(),
+                request.getActivity(),
+                request.getGoal(),
+                request.getMealsPerDay(),
+                request.getIncludeSnack(),
+                List.copyOf(nonNull(request.getExcludedIngredients())),
+                request.getDayPreferences().isEmpty()
+                        ? List.of()
+                        : request.getDayPreferences().stream().map(PreferenceKey::of).toList(),
+                request.getManualCalories(),
+                request.getWeekId() == null ? null : request.getWeekId().trim().toUpperCase(Locale.ROOT),
+                request.getMode(),
+                request.getMinDailyProtein(),
+                request.getWeeklyBudget(),
+                catalogVersion);
+    }
+
+    /**
+     * Профиль без недели и версии каталога — по нему считается, как часто запрашивают один и тот же профиль.
+     */
+    PlanCacheKey profile() {
+        return new PlanCacheKey(diet, gender, age, height, weight, activity, goal, mealsPerDay, includeSnack,
+                excludedIngredients, dayPreferences, manualCalories, null, mode, minDailyProtein, weeklyBudget, 0);
+    }
+
+    /**
+     * Запрос с этим профилем на заданную неделю.
+     */
+    MenuRequest toRequest(String weekId) {
+        MenuRequest request = new MenuRequest();
+        request.setDiet(diet);
+        request.setGender(gender);
+        request.setAge(age);
+        request.setHeight(height);
+        request.setWeight(weight);
+        request.setActivity(activity);
+        request.setGoal(goal);
+        request.setMealsPerDay(mealsPerDay);
+        request.setIncludeSnack(includeSnack);
+        request.setExcludedIngredients(excludedIngredients);
+        request.setDayPreferences(dayPreferences.stream()
+                .map(preference -> preference == null ? null : preference.toPreference())
+                .toList());
+        request.setManualCalories(manualCalories);
+        request.setWeekId(weekId);
+        request.setMode(mode);
+        request.setMinDailyProtein(minDailyProtein);
+        request.setWeeklyBudget(weeklyBudget);
+        return request;
+    }
+
+    private static List<String> nonNull(List<String> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        return values.stream().map(value -> value == null ? "" : value).toList();
+    }
+}
@@ -0,0 +1,213 @@
+package com.planner.service;
+
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Заранее считает планы на текущую и следующую ISO-неделю и кладёт их шаблонами в {@link PlanResultCache}.
+ * Профили: диета (ALL и каждая диета каталога) × число приёмов пищи × калорийность из списков свойств,
+ * плюс самые частые нормализованные профили из реальных запросов. Генерация идёт на отдельном пуле
+ * с ограниченной очередью и пониженным приоритетом: лишние задачи отбрасываются, а не вытесняют живые запросы.
+ */
+@Component
+public class PlanPrewarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanPrewarmer.class);
+
+    private final MenuGeneratorService menuService;
+    private final RecipeCatalogService catalogService;
+    private final PlanResultCache planCache;
+    private final ThreadPoolExecutor executor;
+    private final boolean enabled;
+    private final List<Integer> mealsPerDay;
+    private final List<Integer> calories;
+    private final int topProfiles;
+    private final AtomicBoolean catalogRefreshPending = new AtomicBoolean();
+
+    public PlanPrewarmer(MenuGeneratorService menuService,
+                         RecipeCatalogService catalogService,
+                         PlanResultCache planCache,
+                         @Value("${planner.prewarm.enabled:true}") boolean enabled,
+                         @Value("${planner.prewarm.parallelism:1}") int parallelism,
+                         @Value("${planner.prewarm.queue-size:1000}") int queueSize,
+                         @Value("${planner.prewarm.meals-per-day:3,4,5}") List<Integer> mealsPerDay,
+                         @Value("${planner.prewarm.calories:1500,1800,2000,2200,2500}") List<Integer> calories,
+                         @Value("${planner.prewarm.top-profiles:200}") int topProfiles) {
+        this.menuService = menuService;
+        this.catalogService = catalogService;
+        this.planCache = planCache;
+        this.enabled = enabled;
+        this.mealsPerDay = List.copyOf(mealsPerDay);
+        this.calories = List.copyOf(calories);
+        this.topProfiles = topProfiles;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("plan-prewarm-", 0).daemon(true).priority(Thread.MIN_PRIORITY).factory());
+    }
+
+    /**
+     * Перед сменой недели: шаблоны следующей недели, прошлые недели выбрасываются.
+     */
+    @Scheduled(cron = "${planner.prewarm.cron:0 0 21 * * SUN}")
+    public void prewarmUpcomingWeeks() {
+        if (!enabled) {
+            return;
+        }
+        String current = weekId(LocalDate.now());
+        String next = nextWeekId();
+        planCache.retainTemplates(Set.of(current, next));
+        int built = prewarm(current) + prewarm(next);
+        log.info("Прогрев планов на {} и {}: посчитано {}, всего шаблонов {}",
+                current, next, built, planCache.templateCount());
+    }
+
+    /**
+     * Новый снимок каталога делает старые шаблоны недостижимыми — пересчитываем их в фоне, не дожидаясь расписания.
+     * Сам пересчёт ставится в пул прогрева и берёт снимок, актуальный на момент запуска, поэтому серия изменений
+     * (например, импорт) даёт один пересчёт, а поток, опубликовавший событие, не ждёт построения профилей.
+     */
+    @EventListener
+    public void onCatalogChanged(RecipeCatalogChangedEvent event) {
+        // Шаблоны считаются только по общему каталогу
+        if (!enabled || event.tenantId() != null || !catalogRefreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                catalogRefreshPending.set(false);
+                RecipeCatalog catalog = catalogService.current();
+                submit(weekId(LocalDate.now()), catalog);
+                submit(nextWeekId(), catalog);
+            });
+        } catch (RejectedExecutionException ex) {
+            catalogRefreshPending.set(false);
+            log.debug("Очередь прогрева заполнена, пересчёт шаблонов для версии {} пропущен", event.version());
+        }
+    }
+
+    /**
+     * Считает недостающие шаблоны на неделю и ждёт их.
+     *
+     * @return сколько шаблонов посчитано; профили, для которых шаблон уже есть или задача не влезла в очередь, не считаются
+     */
+    public int prewarm(String weekId) {
+        int built = 0;
+        for (Future<Boolean> task : submit(weekId, catalogService.current())) {
+            try {
+                if (task.get()) {
+                    built++;
+                }
+            } catch (ExecutionException ex) {
+                log.warn("Не удалось заранее посчитать план на {}", weekId, ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Ставит недостающие шаблоны на неделю в пул прогрева и не ждёт их.
+     *
+     * @return сколько задач поставлено в очередь
+     */
+    public int enqueue(String weekId) {
+        return submit(weekId, catalogService.current()).size();
+    }
+
+    private List<Future<Boolean>> submit(String weekId, RecipeCatalog catalog) {
+        Map<PlanCacheKey, MenuRequest> profiles = profiles(weekId, catalog);
+        List<Future<Boolean>> tasks = new ArrayList<>(profiles.size());
+        for (Map.Entry<PlanCacheKey, MenuRequest> profile : profiles.entrySet()) {
+            if (planCache.hasTemplate(profile.getKey())) {
+                continue;
+            }
+            try {
+                tasks.add(executor.submit(() -> build(profile.getKey(), profile.getValue(), catalog)));
+            } catch (RejectedExecutionException ex) {
+                log.debug("Очередь прогрева заполнена, профиль {} пропущен", profile.getKey());
+            }
+        }
+        return tasks;
+    }
+
+    private boolean build(PlanCacheKey key, MenuRequest request, RecipeCatalog catalog) {
+        // Задачи по прежнему снимку, оставшиеся в очереди после смены каталога, не считаются
+        if (planCache.hasTemplate(key) || key.catalogVersion() != catalogService.current().getVersion()) {
+            return false;
+        }
+        MenuPlanResponse plan = menuService.buildPlan(request, catalog);
+        return planCache.putTemplate(key, plan);
+    }
+
+    /**
+     * Нормализованные запросы на неделю с ключами кэша; одинаковые профили из сетки и статистики не дублируются.
+     */
+    private Map<PlanCacheKey, MenuRequest> profiles(String weekId, RecipeCatalog catalog) {
+        Set<String> diets = new TreeSet<>(catalog.diets());
+        diets.add("ALL");
+        List<MenuRequest> requests = new ArrayList<>();
+        for (String diet : diets) {
+            for (int meals : mealsPerDay) {
+                for (int target : calories) {
+                    // Как запрос GET /api/generate-plan, но с разным числом приёмов пищи
+                    MenuRequest request = new MenuRequest();
+                    request.setDiet(diet);
+                    request.setMealsPerDay(meals);
+                    request.setManualCalories(target);
+                    request.setWeekId(weekId);
+                    requests.add(request);
+                }
+            }
+        }
+        for (PlanCacheKey profile : planCache.frequentProfiles(topProfiles)) {
+            requests.add(profile.toRequest(weekId));
+        }
+
+        Map<PlanCacheKey, MenuRequest> profiles = new LinkedHashMap<>();
+        for (MenuRequest request : requests) {
+            MenuRequest normalized = menuService.normalize(request);
+            profiles.putIfAbsent(PlanCacheKey.of(normalized, catalog.getVersion()), normalized);
+        }
+        return profiles;
+    }
+
+    public static String nextWeekId() {
+        return weekId(LocalDate.now().plusWeeks(1));
+    }
+
+    static String weekId(LocalDate date) {
+        return String.format(Locale.ROOT, "%d-W%02d",
+                date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.planner.service;
+
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Схлопывание одинаковых одновременных запросов генерации (single-flight). Пока план для нормализованного
+ * профиля и версии каталога считается, такие же запросы не запускают свою генерацию, а ждут и получают
+ * тот же ответ. Включается отдельно для каждого эндпоинта свойством {@code planner.coalescing.endpoints}.
+ * Без weekId план и так случаен, поэтому общий ответ для совпавших по времени запросов ничего не меняет;
+ * с weekId ключ включает неделю, то есть и зерно генерации.
+ */
+@Component
+public class PlanRequestCoalescer {
+
+    public static final String GET_PLAN = "generate-plan-get";
+    public static final String POST_PLAN = "generate-plan-post";
+
+    private final MenuGeneratorService menuService;
+    private final Set<String> endpoints;
+    private final Map<PlanCacheKey, CompletableFuture<MenuPlanResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> leaders = new HashMap<>();
+    private final Map<String, Counter> followers = new HashMap<>();
+
+    public PlanRequestCoalescer(MenuGeneratorService menuService,
+                                MeterRegistry registry,
+                                @Value("${planner.coalescing.endpoints:}") Set<String> endpoints) {
+        this.menuService = menuService;
+        this.endpoints = Set.copyOf(endpoints);
+        for (String endpoint : this.endpoints) {
+            Counter leader = counter(registry, endpoint, "leader");
+            Counter follower = counter(registry, endpoint, "coalesced");
+            leaders.put(endpoint, leader);
+            followers.put(endpoint, follower);
+            Gauge.builder("planner.coalescing.ratio", () -> ratio(leader, follower))
+                    .description("Доля запросов, получивших план чужой генерации")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+        }
+        Gauge.builder("planner.coalescing.in-flight", inFlight, Map::size)
+                .description("Генерации, к которым могут присоединиться одинаковые запросы")
+                .register(registry);
+    }
+
+    public boolean isEnabled(String endpoint) {
+        return endpoints.contains(endpoint);
+    }
+
+    public MenuPlanResponse generate(String endpoint, MenuRequest rawRequest, RecipeCatalog catalog) {
+        try {
+            return generateAsync(endpoint, rawRequest, catalog, Runnable::run).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * Неблокирующий вариант: генерация лидера запускается на {@code executor}, остальные одинаковые запросы
+     * получают её незавершённый результат и не занимают потоков, пока план считается. Каждый вызов получает
+     * свою копию future, так что отмена одного подписчика не отменяет общий расчёт.
+     */
+    public CompletableFuture<MenuPlanResponse> generateAsync(String endpoint,
+                                                             MenuRequest rawRequest,
+                                                             RecipeCatalog catalog,
+                                                             Executor executor) {
+        if (!isEnabled(endpoint)) {
+            return CompletableFuture.supplyAsync(() -> menuService.generateWeeklyMenu(rawRequest, catalog), executor);
+        }
+        MenuRequest request = menuService.normalize(rawRequest);
+        PlanCacheKey key = PlanCacheKey.of(request, catalog.getVersion());
+        CompletableFuture<MenuPlanResponse> own = new CompletableFuture<>();
+        CompletableFuture<MenuPlanResponse> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            followers.get(endpoint).increment();
+            return running.copy();
+        }
+
+        leaders.get(endpoint).increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    own.complete(menuService.generateWeeklyMenu(request, catalog));
+                } catch (RuntimeException | Error ex) {
+                    own.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(key, own);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Планировщик отказал в запуске — ждущие запросы не должны висеть
+            own.completeExceptionally(ex);
+            inFlight.remove(key, own);
+        }
+        return own.copy();
+    }
+
+    private static Counter counter(MeterRegistry registry, String endpoint, String role) {
+        return Counter.builder("planner.coalescing.requests")
+                .description("Запросы генерации под схлопыванием: leader — считал сам, coalesced — получил чужой план")
+                .tag("endpoint", endpoint)
+                .tag("role", role)
+                .register(registry);
+    }
+
+    private static double ratio(Counter leader, Counter follower) {
+        double total = leader.count() + follower.count();
+        return total == 0 ? 0 : follower.count() / total;
+    }
+}
@@ -0,0 +1,155 @@
+package com.planner.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.planner.dto.MenuPlanResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш детерминированных планов (запросы с weekId). Ключ — нормализованный профиль и версия каталога,
+ * поэтому после изменения рецептов старые записи недостижимы и дополнительно сбрасываются по событию.
+ * <p>
+ * Перед кэшем стоят шаблоны — планы, заранее посчитанные {@link PlanPrewarmer} на текущую и следующую неделю.
+ * Они не вытесняются по TTL и живут, пока не сменится неделя или каталог. Кэш также считает, как часто
+ * запрашивают каждый профиль, — по этим счётчикам выбираются профили для прогрева.
+ */
+@Component
+public class PlanResultCache implements MeterBinder {
+
+    private final Cache<PlanCacheKey, MenuPlanResponse> cache;
+    private final Map<PlanCacheKey, MenuPlanResponse> templates = new ConcurrentHashMap<>();
+    // Caffeine с ограничением по размеру (TinyLFU) сам удерживает самые частые профили
+    private final Cache<PlanCacheKey, LongAdder> profileCounts;
+    private final LongAdder templateHits = new LongAdder();
+    // Последняя известная версия общего снимка: шаблоны более старых версий не принимаются
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    public PlanResultCache(@Value("${planner.plan-cache.max-size:10000}") long maxSize,
+                           @Value("${planner.plan-cache.ttl:10m}") Duration ttl,
+                           @Value("${planner.plan-cache.tracked-profiles:10000}") long trackedProfiles) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.profileCounts = Caffeine.newBuilder()
+                .maximumSize(trackedProfiles)
+                .build();
+    }
+
+    MenuPlanResponse get(PlanCacheKey key, Supplier<MenuPlanResponse> generator) {
+        profileCounts.get(key.profile(), ignored -> new LongAdder()).increment();
+        MenuPlanResponse template = templates.get(key);
+        if (template != null) {
+            templateHits.increment();
+            return template;
+        }
+        MenuPlanResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Генерация идёт вне вычисления Caffeine: долгая функция внутри compute держала бы блокировку
+        // и соседних ключей. Одновременные промахи по одному ключу посчитают план дважды, но вернут первый
+        MenuPlanResponse plan = generator.get();
+        MenuPlanResponse raced = cache.asMap().putIfAbsent(key, plan);
+        return raced != null ? raced : plan;
+    }
+
+    boolean hasTemplate(PlanCacheKey key) {
+        return templates.containsKey(key);
+    }
+
+    /**
+     * Кладёт шаблон, если он посчитан по актуальному общему снимку.
+     *
+     * @return false — каталог успел смениться, шаблон не сохранён
+     */
+    boolean putTemplate(PlanCacheKey key, MenuPlanResponse plan) {
+        if (key.catalogVersion() < catalogVersion.get()) {
+            return false;
+        }
+        templates.put(key, plan);
+        // Событие о новом снимке могло прийти между проверкой и вставкой
+        if (key.catalogVersion() < catalogVersion.get()) {
+            templates.remove(key, plan);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Оставляет шаблоны только указанных недель (weekId в верхнем регистре).
+     */
+    void retainTemplates(Set<String> weekIds) {
+        templates.keySet().removeIf(key -> !weekIds.contains(key.weekId()));
+    }
+
+    /**
+     * До {@code limit} самых часто запрашиваемых профилей (без недели и версии каталога).
+     */
+    List<PlanCacheKey> frequentProfiles(int limit) {
+        return profileCounts.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<PlanCacheKey, LongAdder> entry) -> entry.getValue().sum())
+                        .reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public int templateCount() {
+        return templates.size();
+    }
+
+    public long templateHits() {
+        return templateHits.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "plan-cache");
+        Gauge.builder("planner.plan-templates.size", templates, Map::size)
+                .description("Планы, заранее посчитанные на текущую и следующую неделю")
+                .register(registry);
+        FunctionCounter.builder("planner.plan-templates.hits", templateHits, LongAdder::sum)
+                .description("Запросы, обслуженные заранее посчитанным планом")
+                .register(registry);
+    }
+
+    @EventListener
+    public void onCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (event.tenantId() != null) {
+            // Снимок арендатора получил новую версию — его старые планы недостижимы и уйдут по TTL
+            return;
+        }
+        long version = catalogVersion.accumulateAndGet(event.version(), Math::max);
+        cache.invalidateAll();
+        // События публикуются вне блокировки каталога и могут прийти не по порядку — сравниваем с последней версией
+        templates.keySet().removeIf(key -> key.catalogVersion() < version);
+    }
+}
@@ -0,0 +1,48 @@
+package com.planner.service;
+
+import com.planner.dto.DayPreference;
+import org.springframework.util.StringUtils;
+
+import java.util.BitSet;
+
+/**
+ * Предпочтения дня (кухня и ключевые слова), один раз переведённые в код кухни и битовую маску
+ * по порядковым номерам снимка. Проверка рецепта — сравнение кода и чтение бита.
+ */
+final class PreferenceFilter {
+
+    static final PreferenceFilter NONE = new PreferenceFilter(null, RecipeColumns.NONE, null);
+
+    private final RecipeColumns columns;
+    private final int cuisineCode;
+    private final BitSet keywordMatches;
+
+    private PreferenceFilter(RecipeColumns columns, int cuisineCode, BitSet keywordMatches) {
+        this.columns = columns;
+        this.cuisineCode = cuisineCode;
+        this.keywordMatches = keywordMatches;
+    }
+
+    static PreferenceFilter of(RecipeCatalog catalog, DayPreference preference) {
+        if (preference == null || !preference.isActive()) {
+            return NONE;
+        }
+        int cuisineCode = StringUtils.hasText(preference.getPreferredCuisine())
+                ? catalog.columns().cuisineCodeOf(preference.getPreferredCuisine())
+                : RecipeColumns.NONE;
+        BitSet keywordMatches = preference.getKeywords().isEmpty()
+                ? null
+                : catalog.withAnyKeyword(preference.getKeywords());
+        if (cuisineCode == RecipeColumns.NONE && keywordMatches == null) {
+            return NONE;
+        }
+        return new PreferenceFilter(catalog.columns(), cuisineCode, keywordMatches);
+    }
+
+    boolean matches(int ordinal) {
+        if (cuisineCode != RecipeColumns.NONE && columns.cuisineCode(ordinal) != cuisineCode) {
+            return false;
+        }
+        return keywordMatches == null || keywordMatches.get(ordinal);
+    }
+}
@@ -0,0 +1,340 @@
+package com.planner.service;
+
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемый снимок каталога рецептов, проиндексированный по (диета, тип приёма пищи).
+ * Генератор меню читает только из снимка, поэтому подбор блюд не ходит в БД.
+ * Рецепты внутри снимка адресуются плотными порядковыми номерами (ordinal).
+ * <p>
+ * Снимок арендатора — слой поверх общего снимка ({@link #overlay}): общие рецепты сохраняют свои номера,
+ * рецепты арендатора получают номера после них. Колонки и индексы общего снимка не копируются,
+ * слой хранит только своё, поэтому память растёт с числом рецептов арендаторов, а не с числом арендаторов.
+ */
+public final class RecipeCatalog {
+
+    private final long version;
+    private final RecipeCatalog base;
+    private final int offset;
+    private final List<Recipe> own;
+    private final List<Recipe> recipes;
+    private final RecipeColumns columns;
+    private final CalorieIndex all;
+    private final Map<Long, Integer> ordinalsById;
+    private final Map<MealType, CalorieIndex> byMealType;
+    private final CalorieIndex[][] byDietAndMealType;
+    private final RecipeTextIndex ingredientIndex;
+    private final RecipeTextIndex fullTextIndex;
+
+    /**
+     * @param base общий снимок или null
+     * @param own  рецепты этого слоя, отсортированные по id
+     */
+    private RecipeCatalog(long version, RecipeCatalog base, List<Recipe> own) {
+        this.version = version;
+        this.base = base;
+        this.offset = base == null ? 0 : base.size();
+        this.own = own;
+        this.recipes = base == null ? own : concat(base.recipes, own);
+        this.columns = new RecipeColumns(base == null ? null : base.columns, own);
+
+        Map<Long, Integer> idIndex = new HashMap<>();
+        Map<MealType, List<Integer>> mealIndex = new EnumMap<>(MealType.class);
+        List<Map<MealType, List<Integer>>> dietIndex = new ArrayList<>(columns.dietCount());
+        for (int code = 0; code < columns.dietCount(); code++) {
+            dietIndex.add(new EnumMap<>(MealType.class));
+        }
+        for (int ordinal = offset; ordinal < columns.size(); ordinal++) {
+            if (columns.id(ordinal) != RecipeColumns.NO_ID) {
+                idIndex.put(columns.id(ordinal), ordinal);
+            }
+            MealType mealType = columns.mealType(ordinal);
+            if (mealType == null) {
+                continue;
+            }
+            mealIndex.computeIfAbsent(mealType, type -> new ArrayList<>()).add(ordinal);
+            int dietCode = columns.dietCode(ordinal);
+            if (dietCode != RecipeColumns.NONE) {
+                dietIndex.get(dietCode).computeIfAbsent(mealType, type -> new ArrayList<>()).add(ordinal);
+            }
+        }
+
+        int[] ownOrdinals = new int[own.size()];
+        Arrays.setAll(ownOrdinals, i -> offset + i);
+        this.all = layered(base == null ? null : base.all, calorieIndex(ownOrdinals));
+        this.ordinalsById = idIndex;
+        this.byMealType = new EnumMap<>(MealType.class);
+        for (MealType type : MealType.values()) {
+            List<Integer> ordinals = mealIndex.getOrDefault(type, List.of());
+            CalorieIndex index = layered(base == null ? null : base.candidatesByMealType(type),
+                    calorieIndex(toArray(ordinals)));
+            if (index.size() > 0) {
+                byMealType.put(type, index);
+            }
+        }
+        // [код диеты][тип приёма пищи]; диеты общего снимка сохраняют свои коды
+        this.byDietAndMealType = new CalorieIndex[dietIndex.size()][MealType.values().length];
+        for (int code = 0; code < dietIndex.size(); code++) {
+            for (MealType type : MealType.values()) {
+                CalorieIndex shared = base != null && code < base.byDietAndMealType.length
+                        ? base.byDietAndMealType[code][type.ordinal()]
+                        : null;
+                List<Integer> ordinals = dietIndex.get(code).getOrDefault(type, List.of());
+                byDietAndMealType[code][type.ordinal()] = layered(shared, calorieIndex(toArray(ordinals)));
+            }
+        }
+
+        // Текстовые индексы слоя нумеруют только свои рецепты, с нуля
+        this.ingredientIndex = RecipeTextIndex.build(own.size(),
+                ordinal -> lowerCase(own.get(ordinal).getIngredients()));
+        this.fullTextIndex = RecipeTextIndex.build(own.size(), ordinal -> {
+            Recipe recipe = own.get(ordinal);
+            return lowerCase(Objects.toString(recipe.getTitle(), "") + " "
+                    + Objects.toString(recipe.getDescription(), "") + " "
+                    + Objects.toString(recipe.getIngredients(), ""));
+        });
+    }
+
+    public static RecipeCatalog empty() {
+        return new RecipeCatalog(0, null, List.of());
+    }
+
+    public static RecipeCatalog of(long version, Collection<Recipe> recipes) {
+        return new RecipeCatalog(version, null, sorted(recipes));
+    }
+
+    /**
+     * Снимок арендатора: этот (общий) снимок плюс рецепты арендатора.
+     */
+    public RecipeCatalog overlay(long version, Collection<Recipe> tenantRecipes) {
+        if (base != null) {
+            throw new IllegalStateException("Слой строится только поверх общего снимка");
+        }
+        return new RecipeCatalog(version, this, sorted(tenantRecipes));
+    }
+
+    /**
+     * Тот же слой арендатора поверх нового общего снимка.
+     */
+    RecipeCatalog rebase(long version, RecipeCatalog newBase) {
+        return newBase.overlay(version, own);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return recipes.size();
+    }
+
+    public List<Recipe> all() {
+        return recipes;
+    }
+
+    public Recipe recipe(int ordinal) {
+        return recipes.get(ordinal);
+    }
+
+    public List<Recipe> byMealType(MealType mealType) {
+        return view(candidatesByMealType(mealType).ordinals());
+    }
+
+    public List<Recipe> byDietAndMealType(String dietType, MealType mealType) {
+        return view(candidatesByDietAndMealType(dietType, mealType).ordinals());
+    }
+
+    public Optional<Recipe> findById(long id) {
+        int ordinal = ordinalOf(id);
+        return ordinal < 0 ? Optional.empty() : Optional.of(recipes.get(ordinal));
+    }
+
+    /**
+     * Keyset-страница без БД: до {@code limit} рецептов с id больше {@code afterId}, прошедших фильтр, по возрастанию id.
+     */
+    public List<Recipe> page(long afterId, Predicate<Recipe> filter, int limit) {
+        // Рецепты слоя отсортированы по id, несохранённые (без id) — в конце
+        int lo = offset;
+        int hi = columns.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long id = columns.id(mid);
+            if (id != RecipeColumns.NO_ID && id <= afterId) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        List<Recipe> page = new ArrayList<>(Math.min(limit, 64));
+        for (int ordinal = lo; ordinal < columns.size() && page.size() < limit; ordinal++) {
+            Recipe recipe = recipes.get(ordinal);
+            if (recipe.getId() != null && filter.test(recipe)) {
+                page.add(recipe);
+            }
+        }
+        if (base == null) {
+            return page;
+        }
+        // id общих рецептов и рецептов арендатора чередуются — сливаем две страницы
+        List<Recipe> merged = new ArrayList<>(base.page(afterId, filter, limit));
+        merged.addAll(page);
+        merged.sort(Comparator.comparing(Recipe::getId));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Порядковый номер рецепта в снимке или -1.
+     */
+    int ordinalOf(long id) {
+        Integer ordinal = ordinalsById.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        return base == null ? -1 : base.ordinalOf(id);
+    }
+
+    /**
+     * Рецепт принадлежит этому слою, а не общему снимку.
+     */
+    boolean owns(long id) {
+        return ordinalsById.containsKey(id);
+    }
+
+    /**
+     * Примитивные колонки с калорийностью, белком, ценой и кодами для генератора.
+     */
+    RecipeColumns columns() {
+        return columns;
+    }
+
+    /**
+     * Индексы кандидатов ниже упорядочены по калорийности, а не по id.
+     */
+    CalorieIndex allCandidates() {
+        return all;
+    }
+
+    CalorieIndex candidatesByMealType(MealType mealType) {
+        return byMealType.getOrDefault(mealType, CalorieIndex.EMPTY);
+    }
+
+    CalorieIndex candidatesByDietAndMealType(String dietType, MealType mealType) {
+        int code = columns.dietCodeOf(dietType);
+        return code < 0 ? CalorieIndex.EMPTY : byDietAndMealType[code][mealType.ordinal()];
+    }
+
+    boolean hasDiet(String dietType) {
+        return columns.dietCodeOf(dietType) >= 0;
+    }
+
+    /**
+     * Диеты из индекса по диетам, в верхнем регистре; для слоя — вместе с диетами общего снимка.
+     */
+    Set<String> diets() {
+        return columns.dietNames();
+    }
+
+    /**
+     * Рецепты, в ингредиентах которых встречается хотя бы одно из слов.
+     */
+    BitSet withAnyIngredient(Collection<String> keywords) {
+        return base == null
+                ? ingredientIndex.matchingAny(keywords)
+                : layered(base.withAnyIngredient(keywords), ingredientIndex.matchingAny(keywords));
+    }
+
+    /**
+     * Рецепты, в названии, описании или ингредиентах которых встречается хотя бы одно из слов.
+     */
+    BitSet withAnyKeyword(Collection<String> keywords) {
+        return base == null
+                ? fullTextIndex.matchingAny(keywords)
+                : layered(base.withAnyKeyword(keywords), fullTextIndex.matchingAny(keywords));
+    }
+
+    /**
+     * Копия с добавленным или заменённым рецептом; у снимка арендатора меняется только его слой.
+     */
+    RecipeCatalog withRecipe(long nextVersion, Recipe recipe) {
+        List<Recipe> updated = new ArrayList<>(own.size() + 1);
+        for (Recipe existing : own) {
+            if (!Objects.equals(existing.getId(), recipe.getId())) {
+                updated.add(existing);
+            }
+        }
+        updated.add(recipe);
+        return new RecipeCatalog(nextVersion, base, sorted(updated));
+    }
+
+    RecipeCatalog withoutRecipe(long nextVersion, long id) {
+        List<Recipe> updated = own.stream()
+                .filter(recipe -> recipe.getId() == null || recipe.getId() != id)
+                .toList();
+        return new RecipeCatalog(nextVersion, base, updated);
+    }
+
+    private List<Recipe> view(int[] ordinals) {
+        return new AbstractList<>() {
+            @Override
+            public Recipe get(int index) {
+                return recipes.get(ordinals[index]);
+            }
+
+            @Override
+            public int size() {
+                return ordinals.length;
+            }
+        };
+    }
+
+    private CalorieIndex calorieIndex(int[] ordinals) {
+        return CalorieIndex.of(ordinals, columns::calories);
+    }
+
+    private static CalorieIndex layered(CalorieIndex shared, CalorieIndex own) {
+        return shared == null ? own : CalorieIndex.layered(shared, own);
+    }
+
+    /**
+     * Номера совпадений слоя сдвигаются за общие; {@code shared} — новый битсет, его можно менять.
+     */
+    private BitSet layered(BitSet shared, BitSet own) {
+        for (int i = own.nextSetBit(0); i >= 0; i = own.nextSetBit(i + 1)) {
+            shared.set(offset + i);
+        }
+        return shared;
+    }
+
+    private static List<Recipe> sorted(Collection<Recipe> recipes) {
+        return recipes.stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Recipe::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    private static List<Recipe> concat(List<Recipe> shared, List<Recipe> own) {
+        return new AbstractList<>() {
+            @Override
+            public Recipe get(int index) {
+                return index < shared.size() ? shared.get(index) : own.get(index - shared.size());
+            }
+
+            @Override
+            public int size() {
+                return shared.size() + own.size();
+            }
+        };
+    }
+
+    private static int[] toArray(List<Integer> ordinals) {
+        return ordinals.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String lowerCase(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+}
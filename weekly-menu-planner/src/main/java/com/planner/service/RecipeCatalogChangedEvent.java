@@ -0,0 +1,9 @@
+package com.planner.service;
+
+/**
+ * Публикуется после подмены снимка каталога рецептов.
+ *
+ * @param tenantId арендатор, чей слой изменился, или null — изменился общий снимок (и с ним все слои)
+ */
+public record RecipeCatalogChangedEvent(long version, String tenantId) {
+}
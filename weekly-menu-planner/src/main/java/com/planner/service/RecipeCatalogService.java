@@ -0,0 +1,187 @@
+package com.planner.service;
+
+import com.planner.model.Recipe;
+import com.planner.repository.RecipeRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Хранит актуальный снимок каталога рецептов и атомарно подменяет его при изменениях.
+ * Рецепты без арендатора образуют общий снимок; у каждого арендатора — слой поверх него
+ * с собственными рецептами ({@link RecipeCatalog#overlay}). Версии снимков сквозные,
+ * поэтому ключи кэша планов и ETag разных арендаторов не совпадают.
+ */
+@Service
+public class RecipeCatalogService {
+
+    private final RecipeRepository recipeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<RecipeCatalog> snapshot = new AtomicReference<>();
+    private final Map<String, RecipeCatalog> tenants = new ConcurrentHashMap<>();
+    // События подмен, ещё не отданные слушателям; пополняется и разбирается под монитором сервиса
+    private final List<RecipeCatalogChangedEvent> pendingEvents = new ArrayList<>();
+    private long lastVersion;
+
+    public RecipeCatalogService(RecipeRepository recipeRepository, ApplicationEventPublisher eventPublisher) {
+        this.recipeRepository = recipeRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public RecipeCatalog current() {
+        RecipeCatalog catalog = snapshot.get();
+        return catalog != null ? catalog : initialize();
+    }
+
+    /**
+     * Снимок арендатора; без арендатора или для арендатора без своих рецептов — общий снимок.
+     */
+    public RecipeCatalog current(String tenantId) {
+        RecipeCatalog shared = current();
+        if (!StringUtils.hasText(tenantId)) {
+            return shared;
+        }
+        return tenants.getOrDefault(tenantId, shared);
+    }
+
+    private RecipeCatalog initialize() {
+        RecipeCatalog catalog;
+        synchronized (this) {
+            catalog = snapshot.get();
+            if (catalog == null) {
+                catalog = install(recipeRepository.findAll());
+            }
+        }
+        publishPending();
+        return catalog;
+    }
+
+    public RecipeCatalog refresh() {
+        RecipeCatalog catalog;
+        synchronized (this) {
+            catalog = install(recipeRepository.findAll());
+        }
+        publishPending();
+        return catalog;
+    }
+
+    public RecipeCatalog replace(Collection<Recipe> recipes) {
+        RecipeCatalog catalog;
+        synchronized (this) {
+            catalog = install(recipes);
+        }
+        publishPending();
+        return catalog;
+    }
+
+    public void recipeSaved(Recipe recipe) {
+        synchronized (this) {
+            applySaved(recipe);
+        }
+        publishPending();
+    }
+
+    public void recipeDeleted(long id) {
+        synchronized (this) {
+            applyDeleted(id);
+        }
+        publishPending();
+    }
+
+    private RecipeCatalog install(Collection<Recipe> recipes) {
+        List<Recipe> shared = new ArrayList<>();
+        Map<String, List<Recipe>> byTenant = new HashMap<>();
+        for (Recipe recipe : recipes) {
+            if (StringUtils.hasText(recipe.getTenantId())) {
+                byTenant.computeIfAbsent(recipe.getTenantId(), tenant -> new ArrayList<>()).add(recipe);
+            } else {
+                shared.add(recipe);
+            }
+        }
+        RecipeCatalog catalog = RecipeCatalog.of(nextVersion(), shared);
+        Map<String, RecipeCatalog> overlays = new HashMap<>();
+        byTenant.forEach((tenant, own) -> overlays.put(tenant, catalog.overlay(nextVersion(), own)));
+        snapshot.set(catalog);
+        tenants.keySet().retainAll(overlays.keySet());
+        tenants.putAll(overlays);
+        publish(catalog, null);
+        return catalog;
+    }
+
+    private void applySaved(Recipe recipe) {
+        RecipeCatalog catalog = snapshot.get();
+        if (catalog == null) {
+            install(recipeRepository.findAll());
+            return;
+        }
+        String tenantId = recipe.getTenantId();
+        if (!StringUtils.hasText(tenantId)) {
+            installShared(catalog.withRecipe(nextVersion(), recipe));
+            return;
+        }
+        RecipeCatalog tenant = tenants.get(tenantId);
+        RecipeCatalog updated = tenant == null
+                ? catalog.overlay(nextVersion(), List.of(recipe))
+                : tenant.withRecipe(nextVersion(), recipe);
+        tenants.put(tenantId, updated);
+        publish(updated, tenantId);
+    }
+
+    private void applyDeleted(long id) {
+        RecipeCatalog catalog = snapshot.get();
+        if (catalog == null) {
+            install(recipeRepository.findAll());
+            return;
+        }
+        if (catalog.owns(id)) {
+            installShared(catalog.withoutRecipe(nextVersion(), id));
+            return;
+        }
+        for (Map.Entry<String, RecipeCatalog> tenant : tenants.entrySet()) {
+            if (tenant.getValue().owns(id)) {
+                RecipeCatalog updated = tenant.getValue().withoutRecipe(nextVersion(), id);
+                tenant.setValue(updated);
+                publish(updated, tenant.getKey());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Новый общий снимок: слои арендаторов перекладываются на него — это копирует только их собственные рецепты.
+     */
+    private void installShared(RecipeCatalog catalog) {
+        tenants.replaceAll((tenant, overlay) -> overlay.rebase(nextVersion(), catalog));
+        snapshot.set(catalog);
+        publish(catalog, null);
+    }
+
+    private void publish(RecipeCatalog catalog, String tenantId) {
+        pendingEvents.add(new RecipeCatalogChangedEvent(catalog.getVersion(), tenantId));
+    }
+
+    /**
+     * Слушатели событий вызываются после выхода из монитора: их работа не задерживает другие изменения каталога.
+     * Поэтому события разных подмен могут дойти до слушателей не в порядке версий.
+     */
+    private void publishPending() {
+        List<RecipeCatalogChangedEvent> events;
+        synchronized (this) {
+            events = List.copyOf(pendingEvents);
+            pendingEvents.clear();
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private long nextVersion() {
+        return ++lastVersion;
+    }
+}
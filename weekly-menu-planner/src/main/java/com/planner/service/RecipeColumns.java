@@ -0,0 +1,196 @@
+package com.planner.service;
+
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Поля рецептов, нужные генератору, в виде параллельных примитивных массивов по порядковым номерам снимка.
+ * Диета и кухня закодированы словарём, поэтому проверки в горячем цикле — сравнение целых чисел
+ * без распаковки {@code Integer}, проверок на null и сравнения строк.
+ * <p>
+ * Колонки арендатора — слой поверх общих колонок: номера до {@code offset} читаются из общих массивов,
+ * свои массивы хранят только рецепты арендатора. Словари продолжают общие, поэтому коды совпадают.
+ */
+final class RecipeColumns {
+
+    /** Код отсутствующего значения: рецепт без диеты, кухни или типа приёма пищи. */
+    static final int NONE = -1;
+    /** Код значения, которого нет в словаре снимка: ни один рецепт с ним не совпадёт. */
+    static final int UNKNOWN = -2;
+    /** id рецепта, ещё не сохранённого в БД. */
+    static final long NO_ID = Long.MIN_VALUE;
+
+    private final RecipeColumns base;
+    private final int offset;
+    private final long[] ids;
+    private final int[] calories;
+    private final int[] protein;
+    private final int[] price;
+    private final byte[] mealTypes;
+    private final int[] dietCodes;
+    private final int[] cuisineCodes;
+    private final Dictionary diets;
+    private final Dictionary cuisines;
+
+    RecipeColumns(List<Recipe> recipes) {
+        this(null, recipes);
+    }
+
+    /**
+     * @param base    общие колонки или null; их номера идут первыми
+     * @param recipes рецепты этого слоя, получают номера {@code base.size()} и дальше
+     */
+    RecipeColumns(RecipeColumns base, List<Recipe> recipes) {
+        this.base = base;
+        this.offset = base == null ? 0 : base.size();
+        this.diets = base == null ? new Dictionary() : new Dictionary(base.diets);
+        this.cuisines = base == null ? new Dictionary() : new Dictionary(base.cuisines);
+        int size = recipes.size();
+        this.ids = new long[size];
+        this.calories = new int[size];
+        this.protein = new int[size];
+        this.price = new int[size];
+        this.mealTypes = new byte[size];
+        this.dietCodes = new int[size];
+        this.cuisineCodes = new int[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Recipe recipe = recipes.get(ordinal);
+            ids[ordinal] = recipe.getId() == null ? NO_ID : recipe.getId();
+            calories[ordinal] = valueOf(recipe.getCalories());
+            protein[ordinal] = valueOf(recipe.getProtein());
+            price[ordinal] = valueOf(recipe.getPrice());
+            mealTypes[ordinal] = recipe.getMealType() == null ? NONE : (byte) recipe.getMealType().ordinal();
+            dietCodes[ordinal] = diets.encode(recipe.getDietType());
+            cuisineCodes[ordinal] = cuisines.encode(recipe.getCuisine());
+        }
+    }
+
+    int size() {
+        return offset + ids.length;
+    }
+
+    long id(int ordinal) {
+        return ordinal < offset ? base.id(ordinal) : ids[ordinal - offset];
+    }
+
+    int calories(int ordinal) {
+        return ordinal < offset ? base.calories(ordinal) : calories[ordinal - offset];
+    }
+
+    int protein(int ordinal) {
+        return ordinal < offset ? base.protein(ordinal) : protein[ordinal - offset];
+    }
+
+    int price(int ordinal) {
+        return ordinal < offset ? base.price(ordinal) : price[ordinal - offset];
+    }
+
+    /**
+     * Рецепт без типа приёма пищи подходит в любой слот.
+     */
+    boolean fitsMealType(int ordinal, MealType mealType) {
+        if (ordinal < offset) {
+            return base.fitsMealType(ordinal, mealType);
+        }
+        int code = mealTypes[ordinal - offset];
+        return code == NONE || code == mealType.ordinal();
+    }
+
+    /**
+     * Тип приёма пищи или null.
+     */
+    MealType mealType(int ordinal) {
+        if (ordinal < offset) {
+            return base.mealType(ordinal);
+        }
+        int code = mealTypes[ordinal - offset];
+        return code == NONE ? null : MealType.values()[code];
+    }
+
+    int dietCode(int ordinal) {
+        return ordinal < offset ? base.dietCode(ordinal) : dietCodes[ordinal - offset];
+    }
+
+    int cuisineCode(int ordinal) {
+        return ordinal < offset ? base.cuisineCode(ordinal) : cuisineCodes[ordinal - offset];
+    }
+
+    /**
+     * Код диеты без учёта регистра: {@link #NONE} для пустой строки, {@link #UNKNOWN} — если такой диеты нет.
+     */
+    int dietCodeOf(String dietType) {
+        return diets.lookup(dietType);
+    }
+
+    /**
+     * Код кухни без учёта регистра: {@link #NONE} для пустой строки, {@link #UNKNOWN} — если такой кухни нет.
+     */
+    int cuisineCodeOf(String cuisine) {
+        return cuisines.lookup(cuisine);
+    }
+
+    int dietCount() {
+        return diets.size();
+    }
+
+    /**
+     * Все диеты снимка в верхнем регистре, как их сравнивает генератор.
+     */
+    Set<String> dietNames() {
+        return diets.values();
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes;
+
+        Dictionary() {
+            this.codes = new HashMap<>();
+        }
+
+        Dictionary(Dictionary base) {
+            this.codes = new HashMap<>(base.codes);
+        }
+
+        int encode(String value) {
+            String key = key(value);
+            if (key == null) {
+                return NONE;
+            }
+            Integer code = codes.putIfAbsent(key, codes.size());
+            return code == null ? codes.size() - 1 : code;
+        }
+
+        int size() {
+            return codes.size();
+        }
+
+        Set<String> values() {
+            return Collections.unmodifiableSet(codes.keySet());
+        }
+
+        int lookup(String value) {
+            String key = key(value);
+            if (key == null) {
+                return NONE;
+            }
+            return codes.getOrDefault(key, UNKNOWN);
+        }
+
+        private static String key(String value) {
+            return StringUtils.hasText(value) ? value.toUpperCase(Locale.ROOT) : null;
+        }
+    }
+}
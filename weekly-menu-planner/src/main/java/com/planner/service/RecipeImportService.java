@@ -0,0 +1,254 @@
+package com.planner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.planner.dto.RecipeImportReport;
+import com.planner.model.Recipe;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Массовый импорт рецептов из NDJSON или CSV в общий каталог или в слой арендатора.
+ * Вход читается по одной записи, рецепты пишутся пачками
+ * в отдельных транзакциях (JDBC batch), снимок каталога перестраивается один раз в конце.
+ * Если пачка не записалась целиком, её строки повторяются по одной, чтобы найти и отчитать виновную.
+ */
+@Service
+public class RecipeImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final RecipeCatalogService catalogService;
+    private final ObjectReader recipeReader;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public RecipeImportService(EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               RecipeCatalogService catalogService,
+                               ObjectMapper objectMapper,
+                               @Value("${planner.import.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogService = catalogService;
+        this.recipeReader = objectMapper.readerFor(Recipe.class);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param tenantId арендатор, которому достаются все рецепты; null — общий каталог
+     */
+    public RecipeImportReport importNdjson(InputStream input, String tenantId) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (Import job = new Import(tenantId)) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    job.accept(lineNumber, recipeReader.readValue(line));
+                } catch (JsonProcessingException ex) {
+                    job.reject(lineNumber, "Некорректный JSON: " + ex.getOriginalMessage());
+                }
+            }
+            return job.finish();
+        }
+    }
+
+    /**
+     * Первая запись — заголовок с именами полей рецепта (title, calories, mealType, ...).
+     */
+    public RecipeImportReport importCsv(InputStream input, String tenantId) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        List<String> header;
+        try {
+            header = reader.next();
+        } catch (CsvRecordReader.MalformedRecordException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный заголовок CSV: " + ex.getMessage());
+        }
+        if (header == null || header.stream().noneMatch(column -> "title".equalsIgnoreCase(column.trim()))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "В заголовке CSV нет колонки title");
+        }
+        List<String> columns = header.stream().map(String::trim).toList();
+
+        try (Import job = new Import(tenantId)) {
+            while (true) {
+                List<String> values;
+                try {
+                    values = reader.next();
+                } catch (CsvRecordReader.MalformedRecordException ex) {
+                    // Испорченная запись не обрывает импорт: она попадает в отчёт, чтение идёт дальше
+                    job.reject(ex.line(), ex.getMessage());
+                    continue;
+                }
+                if (values == null) {
+                    break;
+                }
+                long lineNumber = reader.recordLine();
+                if (values.size() != columns.size()) {
+                    job.reject(lineNumber, "Ожидалось колонок: " + columns.size() + ", получено: " + values.size());
+                    continue;
+                }
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    if (StringUtils.hasText(values.get(i))) {
+                        row.put(columns.get(i), values.get(i).trim());
+                    }
+                }
+                try {
+                    job.accept(lineNumber, objectMapper.convertValue(row, Recipe.class));
+                } catch (IllegalArgumentException ex) {
+                    job.reject(lineNumber, "Некорректное значение: " + rootMessage(ex));
+                }
+            }
+            return job.finish();
+        }
+    }
+
+    private static String validate(Recipe recipe) {
+        if (recipe == null) {
+            return "Пустая запись (null)";
+        }
+        if (!StringUtils.hasText(recipe.getTitle())) {
+            return "Не указано название (title)";
+        }
+        if (recipe.getMealType() == null) {
+            return "Не указан тип приёма пищи (mealType)";
+        }
+        if (recipe.getCalories() == null || recipe.getCalories() < 0) {
+            return "Калорийность (calories) должна быть неотрицательной";
+        }
+        return null;
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    /**
+     * Один импорт. Закрывается всегда, в том числе при обрыве входа: уже записанные пачки остаются в БД,
+     * поэтому снимок каталога перестраивается, если записан хотя бы один рецепт.
+     */
+    private final class Import implements AutoCloseable {
+
+        private final long startNanos = System.nanoTime();
+        private final String tenantId;
+        private final List<Recipe> batch = new ArrayList<>(batchSize);
+        private final List<Long> batchLines = new ArrayList<>(batchSize);
+        private final List<RecipeImportReport.RowError> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long failed;
+
+        Import(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        void accept(long line, Recipe recipe) {
+            received++;
+            String problem = validate(recipe);
+            if (problem != null) {
+                failed++;
+                report(line, problem);
+                return;
+            }
+            recipe.setId(null);
+            recipe.setVersion(null);
+            recipe.setTenantId(tenantId);
+            batch.add(recipe);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            received++;
+            failed++;
+            report(line, message);
+        }
+
+        RecipeImportReport finish() {
+            flush();
+            long elapsedNanos = System.nanoTime() - startNanos;
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            return RecipeImportReport.builder()
+                    .received(received)
+                    .imported(imported)
+                    .failed(failed)
+                    .elapsedMillis(elapsedNanos / 1_000_000)
+                    .rowsPerSecond(seconds > 0 ? Math.round(imported / seconds * 10) / 10.0 : 0)
+                    .errors(errors)
+                    .build();
+        }
+
+        @Override
+        public void close() {
+            if (imported > 0) {
+                catalogService.refresh();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                persist(batch);
+                imported += batch.size();
+            } catch (RuntimeException batchError) {
+                // Пачка откатилась целиком — пишем её строки по одной, чтобы отчитать только виновные
+                for (int i = 0; i < batch.size(); i++) {
+                    Recipe recipe = batch.get(i);
+                    recipe.setId(null);
+                    recipe.setVersion(null);
+                    try {
+                        persist(List.of(recipe));
+                        imported++;
+                    } catch (RuntimeException rowError) {
+                        failed++;
+                        report(batchLines.get(i), rootMessage(rowError));
+                    }
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+
+        private void persist(List<Recipe> recipes) {
+            transactionTemplate.executeWithoutResult(status -> {
+                recipes.forEach(entityManager::persist);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+
+        private void report(long line, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RecipeImportReport.RowError(line, message));
+            }
+        }
+    }
+}
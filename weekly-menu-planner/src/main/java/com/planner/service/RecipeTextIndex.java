@@ -0,0 +1,152 @@
+package com.planner.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Инвертированный индекс по токенам текста рецептов: токен → возрастающий список порядковых номеров рецептов.
+ * Списки, а не битсеты: редких токенов (номера, названия) в большом каталоге сотни тысяч,
+ * и битсет на каждый из них занимал бы размер каталога / 8 байт.
+ * Сохраняет семантику поиска подстроки: «гриб» находит «грибами», а ключи с пробелами
+ * («оливковое масло») сужаются по токенам и затем проверяются по исходному тексту.
+ */
+final class RecipeTextIndex {
+
+    /**
+     * Бюджет кэша ключевых слов в байтах битсетов. Каждый битсет — размер каталога / 8 байт, а ключи задаёт клиент,
+     * поэтому кэш ограничен весом, а не числом записей; TinyLFU не даёт потоку случайных строк вытеснить частые слова.
+     */
+    private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+    private final int size;
+    private final String[] tokens;
+    private final int[][] postings;
+    private final IntFunction<String> documents;
+    private final Cache<String, BitSet> keywordCache = Caffeine.newBuilder()
+            .maximumWeight(MAX_CACHED_BYTES)
+            .weigher((String keyword, BitSet bits) -> bits.size() / Byte.SIZE + keyword.length())
+            .build();
+
+    private RecipeTextIndex(int size, String[] tokens, int[][] postings, IntFunction<String> documents) {
+        this.size = size;
+        this.tokens = tokens;
+        this.postings = postings;
+        this.documents = documents;
+    }
+
+    /**
+     * @param documents текст документа по порядковому номеру рецепта (уже в нижнем регистре)
+     */
+    static RecipeTextIndex build(int size, IntFunction<String> documents) {
+        Map<String, Postings> index = new TreeMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            for (String token : tokenize(documents.apply(ordinal))) {
+                index.computeIfAbsent(token, key -> new Postings()).add(ordinal);
+            }
+        }
+        return new RecipeTextIndex(size,
+                index.keySet().toArray(String[]::new),
+                index.values().stream().map(Postings::toArray).toArray(int[][]::new),
+                documents);
+    }
+
+    /**
+     * Рецепты, в тексте которых встречается хотя бы одно из слов. Возвращает новый битсет.
+     */
+    BitSet matchingAny(Collection<String> keywords) {
+        BitSet result = new BitSet(size);
+        for (String keyword : keywords) {
+            if (StringUtils.hasText(keyword)) {
+                result.or(matching(keyword.toLowerCase(Locale.ROOT)));
+            }
+        }
+        return result;
+    }
+
+    private BitSet matching(String keyword) {
+        return keywordCache.get(keyword, this::compute);
+    }
+
+    private BitSet compute(String keyword) {
+        List<String> parts = tokenize(keyword);
+        if (parts.size() == 1 && parts.get(0).length() == keyword.length()) {
+            // Слово без разделителей целиком лежит внутри одного токена текста
+            return tokensContaining(keyword);
+        }
+
+        BitSet candidates;
+        if (parts.isEmpty()) {
+            candidates = new BitSet(size);
+            candidates.set(0, size);
+        } else {
+            candidates = (BitSet) tokensContaining(parts.get(0)).clone();
+            for (int i = 1; i < parts.size() && !candidates.isEmpty(); i++) {
+                candidates.and(tokensContaining(parts.get(i)));
+            }
+        }
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            String document = documents.apply(ordinal);
+            if (document == null || !document.contains(keyword)) {
+                candidates.clear(ordinal);
+            }
+        }
+        return candidates;
+    }
+
+    private BitSet tokensContaining(String part) {
+        BitSet result = new BitSet(size);
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].contains(part)) {
+                for (int ordinal : postings[i]) {
+                    result.set(ordinal);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Порядковые номера одного токена; номер добавляется один раз, даже если токен повторяется в документе.
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[2];
+        private int count;
+
+        void add(int ordinal) {
+            if (count > 0 && ordinals[count - 1] == ordinal) {
+                return;
+            }
+            if (count == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, count * 2);
+            }
+            ordinals[count++] = ordinal;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ordinals, count);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                result.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package com.planner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import com.planner.model.MealType;
+import com.planner.model.PlanDay;
+import com.planner.model.PlanMeal;
+import com.planner.model.Recipe;
+import com.planner.model.WeeklyPlan;
+import com.planner.repository.WeeklyPlanRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Сохранённые недельные планы. План хранит профиль и калорийность каждого слота, поэтому замена
+ * одного блюда или дня подбирает только эти слоты, а не пересчитывает всю неделю.
+ * Рецепты плана читаются из снимка каталога арендатора, для которого план создан; план другого
+ * арендатора не виден.
+ */
+@Service
+public class SavedPlanService {
+
+    private final WeeklyPlanRepository planRepository;
+    private final MenuGeneratorService menuService;
+    private final RecipeCatalogService catalogService;
+    private final ObjectMapper objectMapper;
+
+    public SavedPlanService(WeeklyPlanRepository planRepository,
+                            MenuGeneratorService menuService,
+                            RecipeCatalogService catalogService,
+                            ObjectMapper objectMapper) {
+        this.planRepository = planRepository;
+        this.menuService = menuService;
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public MenuPlanResponse create(MenuRequest rawRequest, String tenantId) {
+        RecipeCatalog catalog = catalogService.current(tenantId);
+        MenuRequest request = menuService.normalize(rawRequest);
+        MenuPlanResponse generated = menuService.generateWeeklyMenu(request, catalog);
+        CalorieProfile calories = CalorieProfile.of(MealPattern.of(request), generated.getTargetCalories());
+        List<MealType> pattern = calories.pattern().mealTypes();
+        int[] slotCalories = calories.slotCalories();
+
+        Instant now = Instant.now();
+        WeeklyPlan plan = WeeklyPlan.builder()
+                .profile(writeProfile(request))
+                .tenantId(tenantId)
+                .targetCalories(generated.getTargetCalories())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        int dayIndex = 0;
+        for (Map.Entry<String, List<Recipe>> entry : generated.getPlan().entrySet()) {
+            PlanDay day = PlanDay.builder().dayIndex(dayIndex++).dayName(entry.getKey()).build();
+            List<Recipe> recipes = entry.getValue();
+            for (int slot = 0; slot < pattern.size(); slot++) {
+                day.getMeals().add(PlanMeal.builder()
+                        .slotIndex(slot)
+                        .mealType(pattern.get(slot))
+                        .targetCalories(slotCalories[slot])
+                        .recipeId(slot < recipes.size() ? recipes.get(slot).getId() : null)
+                        .build());
+            }
+            plan.getDays().add(day);
+        }
+        return toResponse(planRepository.save(plan), request, catalog);
+    }
+
+    @Transactional(readOnly = true)
+    public MenuPlanResponse get(long planId, String tenantId) {
+        WeeklyPlan plan = find(planId, tenantId);
+        return toResponse(plan, readProfile(plan), catalogService.current(plan.getTenantId()));
+    }
+
+    /**
+     * Заново подбирает все блюда дня; остальная неделя не меняется.
+     */
+    @Transactional
+    public MenuPlanResponse regenerateDay(long planId, int dayIndex, String tenantId) {
+        WeeklyPlan plan = find(planId, tenantId);
+        PlanDay day = day(plan, dayIndex);
+        return regenerate(plan, day, day.getMeals());
+    }
+
+    /**
+     * Заново подбирает одно блюдо; остальные слоты плана не меняются.
+     */
+    @Transactional
+    public MenuPlanResponse regenerateMeal(long planId, int dayIndex, int slotIndex, String tenantId) {
+        WeeklyPlan plan = find(planId, tenantId);
+        PlanDay day = day(plan, dayIndex);
+        PlanMeal meal = day.getMeals().stream()
+                .filter(candidate -> candidate.getSlotIndex() == slotIndex)
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Слот не найден"));
+        return regenerate(plan, day, List.of(meal));
+    }
+
+    private MenuPlanResponse regenerate(WeeklyPlan plan, PlanDay day, List<PlanMeal> meals) {
+        RecipeCatalog catalog = catalogService.current(plan.getTenantId());
+        MenuRequest request = readProfile(plan);
+        // Заменяемые блюда тоже считаются использованными — замена не вернёт то же блюдо, пока есть другие
+        List<Long> usedIds = plan.getDays().stream()
+                .flatMap(planDay -> planDay.getMeals().stream())
+                .map(PlanMeal::getRecipeId)
+                .filter(Objects::nonNull)
+                .toList();
+        int[] slotCalories = meals.stream().mapToInt(PlanMeal::getTargetCalories).toArray();
+        List<Recipe> picked = menuService.pickMeals(request, catalog, day.getDayName(),
+                meals.stream().map(PlanMeal::getMealType).toList(), slotCalories, usedIds);
+        for (int i = 0; i < meals.size(); i++) {
+            meals.get(i).setRecipeId(picked.get(i).getId());
+        }
+        plan.setUpdatedAt(Instant.now());
+        return toResponse(plan, request, catalog);
+    }
+
+    private MenuPlanResponse toResponse(WeeklyPlan plan, MenuRequest request, RecipeCatalog catalog) {
+        Map<String, List<Recipe>> days = new LinkedHashMap<>();
+        for (PlanDay day : plan.getDays()) {
+            List<Recipe> recipes = new ArrayList<>(day.getMeals().size());
+            for (PlanMeal meal : day.getMeals()) {
+                recipes.add(meal.getRecipeId() == null
+                        ? menuService.fallbackRecipe(meal.getMealType())
+                        : catalog.findById(meal.getRecipeId())
+                        .orElseGet(() -> menuService.fallbackRecipe(meal.getMealType())));
+            }
+            days.put(day.getDayName(), recipes);
+        }
+        MenuPlanResponse response = menuService.summarize(days, plan.getTargetCalories(), request);
+        response.setPlanId(plan.getId());
+        return response;
+    }
+
+    private WeeklyPlan find(long planId, String tenantId) {
+        return planRepository.findById(planId)
+                .filter(plan -> Objects.equals(tenantId, plan.getTenantId()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "План не найден"));
+    }
+
+    private static PlanDay day(WeeklyPlan plan, int dayIndex) {
+        return plan.getDays().stream()
+                .filter(day -> day.getDayIndex() == dayIndex)
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "День не найден"));
+    }
+
+    private String writeProfile(MenuRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Не удалось сохранить профиль плана", ex);
+        }
+    }
+
+    private MenuRequest readProfile(WeeklyPlan plan) {
+        try {
+            return objectMapper.readValue(plan.getProfile(), MenuRequest.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Повреждён профиль плана " + plan.getId(), ex);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.planner.service;
+
+import java.util.Random;
+
+/**
+ * Частичный отбор k лучших кандидатов по целочисленной оценке (меньше — лучше) без полной сортировки.
+ * Работает на параллельных примитивных массивах оценок и порядковых номеров рецептов; буферы
+ * переиспользуются в пределах потока, поэтому выбор блюда для слота не создаёт промежуточных списков.
+ */
+final class TopKSelector {
+
+    private static final ThreadLocal<TopKSelector> SCRATCH = ThreadLocal.withInitial(TopKSelector::new);
+
+    private int[] ordinals = new int[64];
+    private int[] scores = new int[64];
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Буферы текущего потока вместимостью не меньше {@code capacity}. Содержимое не очищается.
+     */
+    static TopKSelector forCurrentThread(int capacity) {
+        TopKSelector selector = SCRATCH.get();
+        if (selector.ordinals.length < capacity) {
+            int size = Math.max(capacity, selector.ordinals.length * 2);
+            selector.ordinals = new int[size];
+            selector.scores = new int[size];
+        }
+        return selector;
+    }
+
+    int[] ordinals() {
+        return ordinals;
+    }
+
+    int[] scores() {
+        return scores;
+    }
+
+    /**
+     * Переставляет первые {@code n} элементов так, что в [0, k) оказываются k наименьших оценок
+     * (quickselect с трёхсторонним разбиением, опорный элемент берётся из {@code random}).
+     */
+    void selectSmallest(int n, int k, Random random) {
+        int lo = 0;
+        int hi = n - 1;
+        int target = k - 1;
+        while (lo < hi) {
+            int pivot = scores[lo + random.nextInt(hi - lo + 1)];
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                if (scores[i] < pivot) {
+                    swap(lt++, i++);
+                } else if (scores[i] > pivot) {
+                    swap(i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (target < lt) {
+                hi = lt - 1;
+            } else if (target > gt) {
+                lo = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+    }
+}
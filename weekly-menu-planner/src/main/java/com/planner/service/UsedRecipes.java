@@ -0,0 +1,59 @@
+package com.planner.service;
+
+import java.util.Arrays;
+
+/**
+ * Уже выбранные за неделю рецепты — битовая маска {@code long[]} по порядковым номерам снимка.
+ * Проверка и отметка не упаковывают id и ничего не аллоцируют; маска переиспользуется в пределах потока.
+ * Выбранных блюд за неделю не больше нескольких десятков, поэтому при повторном использовании
+ * обнуляются только затронутые слова, а не вся маска.
+ */
+final class UsedRecipes {
+
+    private static final ThreadLocal<UsedRecipes> SCRATCH = ThreadLocal.withInitial(UsedRecipes::new);
+
+    private long[] words = new long[0];
+    private int[] marked = new int[64];
+    private int markedCount;
+
+    private UsedRecipes() {
+    }
+
+    /**
+     * Пустая маска текущего потока на {@code size} рецептов. Действует до следующего вызова в этом потоке.
+     */
+    static UsedRecipes forCurrentThread(int size) {
+        UsedRecipes used = SCRATCH.get();
+        used.reset(size);
+        return used;
+    }
+
+    boolean contains(int ordinal) {
+        return (words[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    void add(int ordinal) {
+        int word = ordinal >>> 6;
+        long bit = 1L << ordinal;
+        if ((words[word] & bit) != 0) {
+            return;
+        }
+        words[word] |= bit;
+        if (markedCount == marked.length) {
+            marked = Arrays.copyOf(marked, markedCount * 2);
+        }
+        marked[markedCount++] = ordinal;
+    }
+
+    private void reset(int size) {
+        int required = (size + 63) >>> 6;
+        if (words.length < required) {
+            words = new long[required];
+        } else {
+            for (int i = 0; i < markedCount; i++) {
+                words[marked[i] >>> 6] = 0;
+            }
+        }
+        markedCount = 0;
+    }
+}
@@ -0,0 +1,264 @@
+package com.planner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Оптимизация всей недели имитацией отжига. Минимизирует отклонение дневной калорийности от цели,
+ * штрафует недобор белка, превышение недельного бюджета и повторы блюд.
+ * Работа ограничена по времени: по истечении лимита возвращается лучшее найденное решение.
+ */
+@Component
+public class WeeklyPlanOptimizer {
+
+    private static final double PROTEIN_WEIGHT = 20.0;   // штраф за грамм недобора белка в день
+    private static final double BUDGET_WEIGHT = 10.0;    // штраф за единицу превышения бюджета
+    private static final double DUPLICATE_WEIGHT = 400.0;
+    private static final double SLOT_WEIGHT = 0.25;      // держим блюда близко к калорийности своего слота
+    private static final double START_TEMPERATURE = 150.0;
+    private static final double END_TEMPERATURE = 0.5;
+    private static final int TIME_CHECK_INTERVAL = 128;
+    private static final int MAX_ITERATIONS = 2_000_000;
+
+    private final long timeLimitNanos;
+
+    public WeeklyPlanOptimizer(@Value("${planner.optimizer.time-limit:200ms}") Duration timeLimit) {
+        this.timeLimitNanos = timeLimit.toNanos();
+    }
+
+    /**
+     * Момент, к которому должна закончиться генерация, начатая в {@code startNanos}: лимит считается
+     * от начала генерации, а не от старта поиска, — сбор пулов кандидатов тоже укладывается в него.
+     */
+    long deadline(long startNanos) {
+        return startNanos + timeLimitNanos;
+    }
+
+    /**
+     * @param pools         кандидаты (порядковые номера в каталоге) для каждого дня и слота
+     * @param slotTargets   калорийность каждого слота дня
+     * @param dailyTarget   целевая калорийность дня
+     * @param minProtein    минимум белка в день, 0 — без ограничения
+     * @param weeklyBudget  недельный бюджет, 0 — без ограничения
+     * @param deadline      {@link System#nanoTime()}, после которого поиск останавливается, см. {@link #deadline(long)}
+     * @return выбранный порядковый номер для каждого дня и слота, -1 — для слота нет кандидатов
+     */
+    int[][] optimize(RecipeCatalog catalog,
+                     int[][][] pools,
+                     int[] slotTargets,
+                     int dailyTarget,
+                     int minProtein,
+                     int weeklyBudget,
+                     long deadline,
+                     Random random) {
+        return new Search(catalog, pools, slotTargets, dailyTarget, minProtein, weeklyBudget, random).run(deadline);
+    }
+
+    private final class Search {
+
+        private final int[][][] pools;
+        private final int[] slotTargets;
+        private final int dailyTarget;
+        private final int minProtein;
+        private final int weeklyBudget;
+        private final Random random;
+
+        // Характеристики кандидатов, развёрнутые в примитивы по [день][слот][индекс в пуле]
+        private final int[][][] calories;
+        private final int[][][] protein;
+        private final int[][][] price;
+        private final int[][][] recipeKeys;
+        private final int[] usage;
+
+        private final int[][] choice;
+        private final int[] dayCalories;
+        private final int[] dayProtein;
+        private int weekPrice;
+        private int duplicates;
+        private double slotDeviation;
+
+        private Search(RecipeCatalog catalog,
+                       int[][][] pools,
+                       int[] slotTargets,
+                       int dailyTarget,
+                       int minProtein,
+                       int weeklyBudget,
+                       Random random) {
+            this.pools = pools;
+            this.slotTargets = slotTargets;
+            this.dailyTarget = dailyTarget;
+            this.minProtein = minProtein;
+            this.weeklyBudget = weeklyBudget;
+            this.random = random;
+
+            int days = pools.length;
+            this.calories = new int[days][][];
+            this.protein = new int[days][][];
+            this.price = new int[days][][];
+            this.recipeKeys = new int[days][][];
+            RecipeColumns columns = catalog.columns();
+            Map<Integer, Integer> keys = new HashMap<>();
+            for (int d = 0; d < days; d++) {
+                int slots = pools[d].length;
+                calories[d] = new int[slots][];
+                protein[d] = new int[slots][];
+                price[d] = new int[slots][];
+                recipeKeys[d] = new int[slots][];
+                for (int s = 0; s < slots; s++) {
+                    int[] pool = pools[d][s];
+                    calories[d][s] = new int[pool.length];
+                    protein[d][s] = new int[pool.length];
+                    price[d][s] = new int[pool.length];
+                    recipeKeys[d][s] = new int[pool.length];
+                    for (int i = 0; i < pool.length; i++) {
+                        calories[d][s][i] = columns.calories(pool[i]);
+                        protein[d][s][i] = columns.protein(pool[i]);
+                        price[d][s][i] = columns.price(pool[i]);
+                        recipeKeys[d][s][i] = keys.computeIfAbsent(pool[i], ordinal -> keys.size());
+                    }
+                }
+            }
+            this.usage = new int[keys.size()];
+            this.choice = new int[days][];
+            this.dayCalories = new int[days];
+            this.dayProtein = new int[days];
+        }
+
+        private int[][] run(long deadline) {
+            initialize();
+            double cost = totalCost();
+            double bestCost = cost;
+            int[][] best = copy(choice);
+
+            // Если сбор пулов съел весь лимит, остаётся стартовое решение
+            long start = System.nanoTime();
+            long budget = deadline - start;
+            double temperature = START_TEMPERATURE;
+            for (int iteration = 1; iteration <= MAX_ITERATIONS && budget > 0; iteration++) {
+                if (iteration % TIME_CHECK_INTERVAL == 0) {
+                    long elapsed = System.nanoTime() - start;
+                    if (elapsed >= budget) {
+                        break;
+                    }
+                    double progress = (double) elapsed / budget;
+                    temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+                }
+
+                int d = random.nextInt(pools.length);
+                int s = random.nextInt(pools[d].length);
+                int size = pools[d][s].length;
+                if (size < 2) {
+                    continue;
+                }
+                int current = choice[d][s];
+                int candidate = random.nextInt(size - 1);
+                if (candidate >= current) {
+                    candidate++;
+                }
+
+                apply(d, s, candidate);
+                double next = totalCost();
+                double delta = next - cost;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    cost = next;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        copyInto(choice, best);
+                    }
+                } else {
+                    apply(d, s, current);
+                }
+            }
+
+            int[][] result = new int[pools.length][];
+            for (int d = 0; d < pools.length; d++) {
+                result[d] = new int[pools[d].length];
+                for (int s = 0; s < pools[d].length; s++) {
+                    result[d][s] = best[d][s] < 0 ? -1 : pools[d][s][best[d][s]];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Стартовое решение — ближайший по калорийности ещё не использованный кандидат каждого слота.
+         */
+        private void initialize() {
+            for (int d = 0; d < pools.length; d++) {
+                choice[d] = new int[pools[d].length];
+                for (int s = 0; s < pools[d].length; s++) {
+                    int size = pools[d][s].length;
+                    if (size == 0) {
+                        choice[d][s] = -1;
+                        continue;
+                    }
+                    int pick = 0;
+                    while (pick < size && usage[recipeKeys[d][s][pick]] > 0) {
+                        pick++;
+                    }
+                    choice[d][s] = pick < size ? pick : 0;
+                    add(d, s, choice[d][s]);
+                }
+            }
+        }
+
+        private void apply(int d, int s, int index) {
+            remove(d, s, choice[d][s]);
+            choice[d][s] = index;
+            add(d, s, index);
+        }
+
+        private void add(int d, int s, int index) {
+            dayCalories[d] += calories[d][s][index];
+            dayProtein[d] += protein[d][s][index];
+            weekPrice += price[d][s][index];
+            slotDeviation += Math.abs(calories[d][s][index] - slotTargets[s]);
+            if (usage[recipeKeys[d][s][index]]++ > 0) {
+                duplicates++;
+            }
+        }
+
+        private void remove(int d, int s, int index) {
+            dayCalories[d] -= calories[d][s][index];
+            dayProtein[d] -= protein[d][s][index];
+            weekPrice -= price[d][s][index];
+            slotDeviation -= Math.abs(calories[d][s][index] - slotTargets[s]);
+            if (--usage[recipeKeys[d][s][index]] > 0) {
+                duplicates--;
+            }
+        }
+
+        private double totalCost() {
+            double cost = SLOT_WEIGHT * slotDeviation + DUPLICATE_WEIGHT * duplicates;
+            for (int d = 0; d < dayCalories.length; d++) {
+                cost += Math.abs(dayCalories[d] - dailyTarget);
+                if (minProtein > 0 && dayProtein[d] < minProtein) {
+                    cost += PROTEIN_WEIGHT * (minProtein - dayProtein[d]);
+                }
+            }
+            if (weeklyBudget > 0 && weekPrice > weeklyBudget) {
+                cost += BUDGET_WEIGHT * (weekPrice - weeklyBudget);
+            }
+            return cost;
+        }
+
+        private static int[][] copy(int[][] source) {
+            int[][] target = new int[source.length][];
+            for (int i = 0; i < source.length; i++) {
+                target[i] = source[i].clone();
+            }
+            return target;
+        }
+
+        private static void copyInto(int[][] source, int[][] target) {
+            for (int i = 0; i < source.length; i++) {
+                System.arraycopy(source[i], 0, target[i], 0, source[i].length);
+            }
+        }
+    }
+}
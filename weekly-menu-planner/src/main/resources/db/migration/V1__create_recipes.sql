@@ -0,0 +1,32 @@
+-- Схема каталога рецептов.
+-- Короткие колонки, по которым фильтруют и сортируют, лежат в recipes; длинные тексты вынесены в recipe_texts,
+-- чтобы сканы и выборки кратких карточек не читали их.
+
+CREATE SEQUENCE recipes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE recipes (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    title        VARCHAR(255),
+    calories     INTEGER,
+    protein      INTEGER,
+    price        INTEGER,
+    diet_type    VARCHAR(255),
+    -- Диета в верхнем регистре: индексируемая замена upper(diet_type) в запросах без учёта регистра
+    diet_key     VARCHAR(255) GENERATED ALWAYS AS (UPPER(diet_type)),
+    cuisine      VARCHAR(255),
+    meal_type    VARCHAR(255) CHECK (meal_type IN ('BREAKFAST', 'SNACK', 'LUNCH', 'DINNER')),
+    cooking_time INTEGER,
+    image_url    VARCHAR(255),
+    version      BIGINT
+);
+
+CREATE TABLE recipe_texts (
+    recipe_id    BIGINT NOT NULL PRIMARY KEY REFERENCES recipes (id) ON DELETE CASCADE,
+    ingredients  CHARACTER LARGE OBJECT,
+    instructions CHARACTER LARGE OBJECT,
+    description  CHARACTER LARGE OBJECT
+);
+
+-- Кандидаты слота: диета + тип приёма пищи, упорядоченные по калорийности
+CREATE INDEX idx_recipes_diet_meal_calories ON recipes (diet_key, meal_type, calories);
+CREATE INDEX idx_recipes_meal_calories ON recipes (meal_type, calories);
@@ -0,0 +1,36 @@
+-- Сохранённые недельные планы: план -> день -> слот приёма пищи.
+-- Слот хранит свою калорийность, чтобы перегенерация дня или блюда не пересчитывала распределение,
+-- и id рецепта (NULL — заглушка или рецепт удалён).
+
+CREATE SEQUENCE weekly_plans_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE plan_days_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE plan_meals_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE weekly_plans (
+    id              BIGINT                   NOT NULL PRIMARY KEY,
+    -- Нормализованный профиль (MenuRequest) в JSON
+    profile         CHARACTER LARGE OBJECT   NOT NULL,
+    target_calories INTEGER                  NOT NULL,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE plan_days (
+    id        BIGINT       NOT NULL PRIMARY KEY,
+    plan_id   BIGINT       NOT NULL REFERENCES weekly_plans (id) ON DELETE CASCADE,
+    day_index INTEGER      NOT NULL,
+    day_name  VARCHAR(255) NOT NULL,
+    UNIQUE (plan_id, day_index)
+);
+
+CREATE TABLE plan_meals (
+    id              BIGINT       NOT NULL PRIMARY KEY,
+    day_id          BIGINT       NOT NULL REFERENCES plan_days (id) ON DELETE CASCADE,
+    slot_index      INTEGER      NOT NULL,
+    meal_type       VARCHAR(255) NOT NULL CHECK (meal_type IN ('BREAKFAST', 'SNACK', 'LUNCH', 'DINNER')),
+    target_calories INTEGER      NOT NULL,
+    recipe_id       BIGINT       REFERENCES recipes (id) ON DELETE SET NULL,
+    UNIQUE (day_id, slot_index)
+);
+
+CREATE INDEX idx_plan_meals_recipe ON plan_meals (recipe_id);
@@ -0,0 +1,6 @@
+-- Рецепты арендаторов (партнёрских брендов) лежат в той же таблице, что и общий каталог.
+-- NULL — общий рецепт; каталог арендатора = общие рецепты + его собственные.
+
+ALTER TABLE recipes ADD COLUMN tenant_id VARCHAR(64);
+
+CREATE INDEX idx_recipes_tenant ON recipes (tenant_id, id);
@@ -0,0 +1,4 @@
+-- Арендатор, по каталогу которого собран план: перегенерация дней и блюд берёт тот же каталог.
+-- NULL — план по общему каталогу.
+
+ALTER TABLE weekly_plans ADD COLUMN tenant_id VARCHAR(64);
@@ -0,0 +1,70 @@
+-- Стартовый каталог рецептов, версия 1. Загружается одной командой RUNSCRIPT при пустой таблице recipes.
+-- Идентификаторы заданы явно; последовательность сдвигается за них, чтобы новые рецепты не конфликтовали.
+-- Hibernate берёт id блоками по 50 (allocationSize) и считает значение последовательности верхней границей
+-- блока, поэтому RESTART WITH = последний id + 50: следующий блок начнётся с 31.
+INSERT INTO recipes (id, title, calories, protein, price, diet_type, cuisine, meal_type, cooking_time,
+                     image_url, version) VALUES
+(1, 'Гречка с лесными грибами', 380, 14, 220, 'REGULAR', 'Русская', 'BREAKFAST', 25, 'https://example.com/grechka.jpg', 0),
+(2, 'Запечённый лосось с брокколи', 520, 42, 620, 'KETO', 'Скандинавская', 'DINNER', 30, 'https://example.com/salmon.jpg', 0),
+(3, 'Салат с киноа и нутом', 410, 18, 280, 'VEGAN', 'Средиземноморская', 'LUNCH', 20, 'https://example.com/quinoa.jpg', 0),
+(4, 'Творожные сырники из духовки', 330, 20, 180, 'REGULAR', 'Русская', 'BREAKFAST', 35, 'https://example.com/syrniki.jpg', 0),
+(5, 'Окрошка на кефире с индейкой', 290, 25, 150, 'REGULAR', 'Русская', 'LUNCH', 40, 'https://example.com/okroshka.jpg', 0),
+(6, 'Тёплый салат из киноа и запечённых овощей', 430, 16, 240, 'VEGAN', 'Авторская', 'DINNER', 35, 'https://example.com/quinoa-salad.jpg', 0),
+(7, 'Куриное филе с булгуром и шпинатом', 480, 45, 260, 'REGULAR', 'Авторская', 'DINNER', 30, 'https://example.com/chicken.jpg', 0),
+(8, 'Зелёный смузи для перекуса', 190, 8, 90, 'VEGAN', 'Авторская', 'SNACK', 10, 'https://example.com/smoothie.jpg', 0),
+(9, 'Салат табуле с киноа', 220, 7, 130, 'VEGAN', 'Ближневосточная', 'SNACK', 25, 'https://example.com/tabbouleh.jpg', 0),
+(10, 'Рагу из нута и тыквы', 360, 14, 210, 'VEGAN', 'Марокканская', 'DINNER', 40, 'https://example.com/tagine.jpg', 0),
+(11, 'Ягодный чизкейк без выпечки', 250, 12, 200, 'REGULAR', 'Авторская', 'SNACK', 20, 'https://example.com/cheesecake.jpg', 0),
+(12, 'Борщ с фасолью и сметаной', 340, 22, 190, 'REGULAR', 'Украинская', 'LUNCH', 90, 'https://example.com/borscht.jpg', 0),
+(13, 'Шакшука с нутом', 360, 18, 210, 'REGULAR', 'Средиземноморская', 'BREAKFAST', 25, 'https://example.com/shakshuka.jpg', 0),
+(14, 'Смузи-боул с манго и чиа', 310, 9, 170, 'VEGAN', 'Авторская', 'BREAKFAST', 10, 'https://example.com/smoothie-bowl.jpg', 0),
+(15, 'Белковый омлет с шпинатом', 280, 24, 160, 'KETO', 'Авторская', 'BREAKFAST', 15, 'https://example.com/protein-omelette.jpg', 0),
+(16, 'Тыквенный крем-суп с чечевицей', 360, 16, 180, 'VEGAN', 'Европейская', 'LUNCH', 35, 'https://example.com/pumpkin-soup.jpg', 0),
+(17, 'Суп мисо с лососем и шпинатом', 320, 28, 340, 'KETO', 'Японская', 'LUNCH', 25, 'https://example.com/miso-salmon.jpg', 0),
+(18, 'Будда-боул с киноа и темпе', 430, 22, 260, 'VEGAN', 'Паназиатская', 'LUNCH', 30, 'https://example.com/buddha-bowl.jpg', 0),
+(19, 'Салат с булгуром и фетой', 400, 15, 210, 'REGULAR', 'Греческая', 'LUNCH', 25, 'https://example.com/bulgur-salad.jpg', 0),
+(20, 'Фалафель из запечённого нута', 370, 17, 190, 'VEGAN', 'Ближневосточная', 'LUNCH', 40, 'https://example.com/falafel.jpg', 0),
+(21, 'Салат с тунцом и фасолью', 350, 30, 250, 'KETO', 'Итальянская', 'LUNCH', 20, 'https://example.com/tuna-salad.jpg', 0),
+(22, 'Лобио с орехами по-грузински', 410, 19, 200, 'VEGAN', 'Грузинская', 'DINNER', 45, 'https://example.com/lobio.jpg', 0),
+(23, 'Треска на пару с зелёными овощами', 370, 34, 320, 'REGULAR', 'Скандинавская', 'DINNER', 25, 'https://example.com/cod-steam.jpg', 0),
+(24, 'Говядина томлёная с киноа', 540, 42, 380, 'REGULAR', 'Авторская', 'DINNER', 70, 'https://example.com/beef-quinoa.jpg', 0),
+(25, 'Тофу терияки с рисовой лапшой', 420, 20, 260, 'VEGAN', 'Азиатская', 'DINNER', 30, 'https://example.com/tofu-teriyaki.jpg', 0),
+(26, 'Чили с индейкой и фасолью', 480, 38, 240, 'REGULAR', 'Мексиканская', 'DINNER', 50, 'https://example.com/turkey-chili.jpg', 0),
+(27, 'Баклажаны по-азиатски с кунжутом', 360, 11, 190, 'VEGAN', 'Азиатская', 'DINNER', 30, 'https://example.com/eggplant.jpg', 0),
+(28, 'Сэндвич с индейкой и песто', 320, 20, 150, 'REGULAR', 'Европейская', 'SNACK', 15, 'https://example.com/turkey-sandwich.jpg', 0),
+(29, 'Роллы из огурца с крем-сыром и лососем', 210, 16, 180, 'KETO', 'Авторская', 'SNACK', 10, 'https://example.com/cucumber-rolls.jpg', 0),
+(30, 'Хумус с печёным перцем', 240, 9, 140, 'VEGAN', 'Средиземноморская', 'SNACK', 20, 'https://example.com/hummus.jpg', 0);
+
+INSERT INTO recipe_texts (recipe_id, ingredients, instructions, description) VALUES
+(1, 'гречка, шампиньоны, белые грибы, яйцо, зелень, сливочное масло', 'Отварите гречку, обжарьте грибы с луком, смешайте и подайте с яйцом-пашот.', 'Сытный завтрак в русском стиле с большим количеством клетчатки.'),
+(2, 'филе лосося, брокколи, лимон, сливочное масло, чеснок', 'Приправьте рыбу, запекайте 15 минут, брокколи обжарьте на сливочном масле.', 'Лёгкий ужин с хорошим балансом омега-3 и клетчатки.'),
+(3, 'киноа, нут, томаты черри, огурец, зелень, оливковое масло, лимон', 'Отварите киноа, смешайте с нутом и овощами, заправьте лимонным соком.', 'Яркий салат с растительным белком и свежими овощами.'),
+(4, 'творог, яйцо, рисовая мука, ваниль, мёд, ягоды', 'Смешайте ингредиенты, сформируйте сырники и запекайте 20 минут.', 'Полезная версия классических сырников без жарки на масле.'),
+(5, 'кефир, индейка, картофель, огурец, редис, яйцо, зелень', 'Отварите индейку и картофель, нарежьте все ингредиенты и залейте кефиром.', 'Освежающий обед с высоким содержанием белка.'),
+(6, 'киноа, баклажан, кабачок, перец, кинза, тахини', 'Запеките овощи, сварите киноа и смешайте с соусом тахини.', 'Полноценный ужин без продуктов животного происхождения.'),
+(7, 'куриная грудка, булгур, шпинат, чеснок, йогуртовый соус', 'Обжарьте грудку, булгур тушите с овощами, подавайте с соусом.', 'Сытное блюдо после тренировки или активного дня.'),
+(8, 'шпинат, банан, яблоко, миндальное молоко, чиа', 'Взбейте все ингредиенты в блендере до кремовой текстуры.', 'Быстрый перекус с витаминами и клетчаткой.'),
+(9, 'киноа, петрушка, мята, томаты, огурец, лимон, оливковое масло', 'Смешайте все ингредиенты и охладите перед подачей.', 'Лёгкий перекус или гарнир с ярким вкусом свежей зелени.'),
+(10, 'тыква, нут, томаты, чеснок, кориандр, зира', 'Тушите все ингредиенты 25 минут до мягкости.', 'Согревающее блюдо с восточными специями.'),
+(11, 'творог, греческий йогурт, ягоды, овсяное печенье, мёд', 'Сделайте основу из печенья, сверху выложите творожный крем и ягоды.', 'Десерт без сахара, который можно приготовить заранее.'),
+(12, 'говядина, свёкла, капуста, фасоль, морковь, лук, сметана', 'Варите бульон, добавьте овощи и фасоль, подавайте со сметаной.', 'Классический борщ с мягким вкусом и большим количеством овощей.'),
+(13, 'яйца, нут, томаты, перец, зира, паприка', 'Обжарьте овощи, добавьте нут и яйца, тушите до готовности.', 'Острый белковый завтрак в сковороде.'),
+(14, 'манго, банан, кокосовое молоко, чиа, орехи', 'Взбейте в блендере и украсьте орехами и чиа.', 'Свежий завтрак с быстрыми углеводами и полезными жирами.'),
+(15, 'яичные белки, шпинат, творожный сыр, масло гхи', 'Обжарьте шпинат, добавьте белки и сыр, доведите до готовности.', 'Лёгкий кето-завтрак с большим количеством белка.'),
+(16, 'тыква, красная чечевица, кокосовое молоко, куркума, чеснок', 'Варите ингредиенты до мягкости, пробейте блендером.', 'Густой суп, который согреет в холодный день.'),
+(17, 'лосось, мисо паста, шпинат, водоросли, тофу', 'Сварите бульон, добавьте мисо, рыбу и шпинат перед подачей.', 'Низкоуглеводный суп с ярким вкусом мисо.'),
+(18, 'киноа, темпе, авокадо, морковь, свекла, арахисовый соус', 'Разложите ингредиенты в боул и полейте соусом.', 'Цветной боул с балансом белков, жиров и углеводов.'),
+(19, 'булгур, фета, оливки, огурцы, томаты, оливковое масло', 'Отварите булгур, смешайте с овощами и фетой.', 'Свежий салат в средиземноморском стиле.'),
+(20, 'нут, лук, кинза, чеснок, тахини, специи', 'Сформируйте шарики и запекайте до хруста.', 'Полезная альтернатива жареному фалафелю.'),
+(21, 'тунец, фасоль каннеллини, рукола, оливковое масло, лимон', 'Смешайте ингредиенты и подавайте охлаждёнными.', 'Белковый салат для лёгкого обеда.'),
+(22, 'красная фасоль, орехи, кинза, чеснок, хмели-сунели', 'Отварите фасоль и тушите с ореховой пастой и специями.', 'Плотное блюда без мяса с характерным ароматом.'),
+(23, 'филе трески, стручковая фасоль, горошек, лимон, масло', 'Готовьте рыбу на пару, овощи припустите и подавайте с лимоном.', 'Лёгкий ужин с высоким содержанием белка.'),
+(24, 'говядина, киноа, томаты, сельдерей, морковь', 'Тушите говядину до мягкости, подавайте с киноа и соусом.', 'Сытный вечерний вариант после активного дня.'),
+(25, 'тофу, рисовая лапша, соус терияки, брокколи, кунжут', 'Обжарьте тофу в соусе и смешайте с лапшой и овощами.', 'Азиатская классика без продуктов животного происхождения.'),
+(26, 'фарш индейки, фасоль, томаты, кукуруза, специи', 'Тушите всё вместе до насыщенного вкуса, подавайте с зеленью.', 'Пряное рагу для прохладного вечера.'),
+(27, 'баклажаны, соевый соус, мёд, чили, кунжут', 'Запеките баклажаны и глазируйте соусом.', 'Пикантное блюдо для любителей остроты.'),
+(28, 'цельнозерновой хлеб, индейка, песто, сыр, салат', 'Соберите сэндвич и поджарьте на гриле.', 'Плотный перекус в дороге.'),
+(29, 'огурец, крем-сыр, лосось, укроп, лимон', 'Нарежьте огурец, сверните с начинкой и охладите.', 'Свежий кето-перекус за 10 минут.'),
+(30, 'нут, тахини, печёный перец, лимон, тмин', 'Взбейте в блендере и подавайте с овощными палочками.', 'Полезный дип для перекуса или добавки к салату.');
+
+ALTER SEQUENCE recipes_seq RESTART WITH 80;
@@ -39,6 +39,7 @@ const weekInput = document.getElementById('weekId');
 const THEME_STORAGE_KEY = 'planner-theme';
 const NOTES_STORAGE_KEY = 'planner-notes';
 const MAX_NOTES = 20;
+const RECIPES_PAGE_SIZE = 50;
 
 const mealLabels = {
   BREAKFAST: '🍳 Завтрак',
@@ -50,6 +51,7 @@ const mealLabels = {
 const state = {
   plan: null,
   recipes: [],
+  recipesCursor: null,
   editingRecipeId: null,
 };
 
@@ -95,20 +97,28 @@ planRoot.addEventListener('click', (event) => {
   }
 });
 
-recipesListEl.addEventListener('click', (event) => {
+recipesListEl.addEventListener('click', async (event) => {
+  if (event.target.closest('[data-more]')) {
+    await loadRecipes(true);
+    return;
+  }
   const editBtn = event.target.closest('[data-edit]');
   if (!editBtn) return;
-  const recipeId = Number(editBtn.dataset.edit);
-  const recipe = state.recipes.find((r) => r.id === recipeId);
-  if (recipe) {
-    populateRecipeForm(recipe);
+  // В списке только краткие карточки — полный рецепт запрашиваем отдельно
+  try {
+    const resp = await fetch(`/api/recipes/${editBtn.dataset.edit}`);
+    if (!resp.ok) throw new Error('Не удалось загрузить рецепт');
+    populateRecipeForm(await resp.json());
+  } catch (error) {
+    console.error(error);
+    alert('Не получилось открыть рецепт.');
   }
 });
 
 recipeForm.addEventListener('submit', handleRecipeSubmit);
 cancelEditBtn.addEventListener('click', resetRecipeForm);
 deleteRecipeBtn.addEventListener('click', handleDeleteRecipe);
-refreshRecipesBtn.addEventListener('click', loadRecipes);
+refreshRecipesBtn.addEventListener('click', () => loadRecipes());
 
 modalClose.addEventListener('click', closeModal);
 modal.addEventListener('click', (event) => {
@@ -422,11 +432,15 @@ function setGenerateLoading(isLoading) {
   generateBtn.textContent = isLoading ? 'Собираем меню...' : 'Собрать план';
 }
 
-async function loadRecipes() {
+async function loadRecipes(append = false) {
   try {
-    const resp = await fetch('/api/recipes');
+    const params = new URLSearchParams({ limit: RECIPES_PAGE_SIZE });
+    if (append && state.recipesCursor) params.set('cursor', state.recipesCursor);
+    const resp = await fetch(`/api/recipes?${params}`);
     if (!resp.ok) throw new Error('Не удалось загрузить рецепты');
-    state.recipes = await resp.json();
+    const page = await resp.json();
+    state.recipes = append ? state.recipes.concat(page.items) : page.items;
+    state.recipesCursor = page.nextCursor ?? null;
     renderRecipeList();
   } catch (error) {
     console.error(error);
@@ -445,14 +459,17 @@ function renderRecipeList() {
     <div class="recipe-item">
       <h4>${recipe.title}</h4>
       <div class="meta">${mealLabels[recipe.mealType] || ''} · ${recipe.calories ?? 0} ккал · ${recipe.dietType || ''}</div>
-      <p>${recipe.description || 'Описание появится после сохранения.'}</p>
+      <p>${[recipe.cuisine, recipe.protein ? recipe.protein + ' г белка' : '', recipe.cookingTime ? recipe.cookingTime + ' мин' : '']
+        .filter(Boolean)
+        .join(' · ')}</p>
       <div class="mini-actions">
         <button type="button" class="outline" data-edit="${recipe.id}">Редактировать</button>
       </div>
     </div>
   `
     )
-    .join('');
+    .join('') +
+    (state.recipesCursor ? '<button type="button" class="outline" data-more>Показать ещё</button>' : '');
 }
 
 async function handleRecipeSubmit(event) {
@@ -1,22 +1,37 @@
 package com.planner.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.planner.dto.MenuRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 class MenuControllerTest {
 
     @Autowired
@@ -26,10 +41,137 @@ class MenuControllerTest {
     private ObjectMapper objectMapper;
 
     @Test
-    @DisplayName("GET /api/recipes возвращает список (может быть пустым, но без ошибки)")
-    void getAllRecipes_returnsOk() throws Exception {
-        mockMvc.perform(get("/api/recipes"))
+    @DisplayName("GET /api/recipes возвращает страницу кратких карточек и курсор следующей")
+    void getRecipes_returnsSummaryPage() throws Exception {
+        mockMvc.perform(get("/api/recipes").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(5))
+                .andExpect(jsonPath("$.items[0].title").exists())
+                .andExpect(jsonPath("$.items[0].ingredients").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isNumber());
+    }
+
+    @Test
+    @DisplayName("GET /api/recipes/{id} отдаёт ETag и отвечает 304 на совпадающий If-None-Match")
+    void getRecipe_withMatchingETag_returnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/recipes/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        assertThat(etag).isNotBlank();
+        mockMvc.perform(get("/api/recipes/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @Test
+    @DisplayName("GET /api/generate-plan с weekId кэшируется по ETag, без weekId — не кэшируется")
+    void generatePlan_withWeekId_supportsConditionalRequests() throws Exception {
+        String etag = mockMvc.perform(get("/api/generate-plan").param("calories", "1900").param("weekId", "2025-W20"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        assertThat(etag).isNotBlank();
+        mockMvc.perform(get("/api/generate-plan").param("calories", "1900").param("weekId", "2025-W20")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/generate-plan").param("calories", "1900"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+
+    @Test
+    @DisplayName("POST /api/recipes/import (CSV) сохраняет корректные строки и отчитывается об ошибочных")
+    void importRecipesCsv_reportsRowErrors() throws Exception {
+        String csv = """
+                title,calories,protein,mealType,dietType,ingredients
+                Импортный омлет,350,20,BREAKFAST,REGULAR,"яйца, молоко"
+                "Суп \"\"Домашний\"\"",420,18,LUNCH,REGULAR,"картофель,
+                морковь"
+                Без калорий,,10,DINNER,REGULAR,рис
+                Неизвестный тип,300,10,BRUNCH,REGULAR,хлеб
+                """;
+
+        mockMvc.perform(
+                        post("/api/recipes/import")
+                                .contentType("text/csv")
+                                .content(csv.getBytes(StandardCharsets.UTF_8))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(5))
+                .andExpect(jsonPath("$.errors[1].line").value(6));
+
+        mockMvc.perform(get("/api/recipes").param("mealType", "LUNCH").param("minCalories", "420")
+                        .param("maxCalories", "420").param("limit", "200"))
+                .andExpect(jsonPath("$.items[?(@.title == 'Суп \"Домашний\"')]").exists());
+    }
+
+    @Test
+    @DisplayName("POST /api/recipes/import (CSV): незакрытая кавычка в середине файла отбрасывает только свою строку")
+    void importRecipesCsv_skipsRecordWithUnclosedQuote() throws Exception {
+        String csv = """
+                title,calories,protein,mealType,dietType,ingredients
+                Сырники до ошибки,380,22,BREAKFAST,REGULAR,творог
+                "Оладьи без кавычки,300,8,BREAKFAST,REGULAR,мука
+                Сырники после ошибки,390,23,BREAKFAST,REGULAR,"творог, изюм"
+                Омлет после ошибки,310,19,BREAKFAST,REGULAR,яйца
+                """;
+
+        mockMvc.perform(
+                        post("/api/recipes/import")
+                                .contentType("text/csv")
+                                .content(csv.getBytes(StandardCharsets.UTF_8))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+
+        mockMvc.perform(get("/api/recipes").param("mealType", "BREAKFAST").param("minCalories", "390")
+                        .param("maxCalories", "390").param("limit", "200"))
+                .andExpect(jsonPath("$.items[?(@.title == 'Сырники после ошибки')]").exists());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/prometheus отдаёт метрики фаз генерации, нехватки кандидатов и числа SQL-запросов")
+    void prometheus_exposesGenerationMetrics() throws Exception {
+        mockMvc.perform(get("/api/generate-plan").param("diet", "PALEO").param("calories", "2000"))
                 .andExpect(status().isOk());
+        mockMvc.perform(get("/api/recipes").param("limit", "3"))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(metrics)
+                .contains("planner_generation_phase_seconds_count{phase=\"fetch\"")
+                .contains("planner_generation_phase_seconds_count{phase=\"rank\"")
+                .contains("planner_candidates_pool_count{mealType=\"LUNCH\"")
+                .contains("planner_candidates_shortage_total{diet=\"UNKNOWN\"")
+                .contains("planner_db_queries_count{method=\"GET\",uri=\"/api/recipes\"")
+                .contains("cache_gets_total{cache=\"plan-cache\"");
+    }
+
+    @Test
+    @DisplayName("POST /api/plan-cache/prewarm ставит шаблоны в очередь и сразу отвечает 202")
+    void prewarmPlans_isAcceptedWithoutWaiting() throws Exception {
+        mockMvc.perform(post("/api/plan-cache/prewarm").param("weekId", "2025-W31"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.weekId").value("2025-W31"))
+                .andExpect(jsonPath("$.queued").isNumber());
     }
 
     @Test
@@ -63,6 +205,246 @@ class MenuControllerTest {
                 .andExpect(jsonPath("$.plan").exists())
                 .andExpect(jsonPath("$.targetCalories").value(2100));
     }
-}
 
+    @Test
+    @DisplayName("Сохранённый план: замена одного блюда не трогает остальные слоты недели")
+    void savedPlan_regenerateMeal_keepsOtherSlots() throws Exception {
+        MenuRequest request = new MenuRequest();
+        request.setWeekId("2025-W30");
+        request.setManualCalories(2000);
+
+        JsonNode saved = objectMapper.readTree(mockMvc.perform(post("/api/plans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.planId").isNumber())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        long planId = saved.path("planId").asLong();
+
+        JsonNode updated = objectMapper.readTree(mockMvc.perform(
+                        post("/api/plans/{id}/days/{day}/meals/{slot}/regenerate", planId, 2, 1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+        assertThat(updated.path("planId").asLong()).isEqualTo(planId);
+        assertThat(updated.path("targetCalories").asInt()).isEqualTo(2000);
+        JsonNode before = saved.path("plan");
+        JsonNode after = updated.path("plan");
+        List<String> days = before.properties().stream().map(Map.Entry::getKey).toList();
+        assertThat(days).hasSize(7);
+        for (int day = 0; day < days.size(); day++) {
+            for (int slot = 0; slot < 3; slot++) {
+                if (day != 2 || slot != 1) {
+                    assertThat(after.path(days.get(day)).path(slot).path("id"))
+                            .isEqualTo(before.path(days.get(day)).path(slot).path("id"));
+                }
+            }
+        }
+        mockMvc.perform(get("/api/plans/{id}", planId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plan." + days.get(2) + "[1].id")
+                        .value(after.path(days.get(2)).path(1).path("id").asLong()));
+        mockMvc.perform(post("/api/plans/{id}/days/{day}/regenerate", planId, 9))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("POST /api/generate-plans возвращает планы в порядке входных профилей")
+    void generatePlans_returnsResultsInInputOrder() throws Exception {
+        MenuRequest first = new MenuRequest();
+        first.setWeekId("2025-W10");
+        first.setManualCalories(1600);
+        MenuRequest second = new MenuRequest();
+        second.setDiet("VEGAN");
+        second.setManualCalories(2400);
+
+        mockMvc.perform(
+                        post("/api/generate-plans")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(first, second)))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].plan.targetCalories").value(1600))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].plan.targetCalories").value(2400));
+    }
+
+    @Test
+    @DisplayName("POST /api/generate-plans/stream отдаёт по NDJSON-строке на каждый профиль")
+    void streamPlans_writesOneRecordPerProfile() throws Exception {
+        MenuRequest request = new MenuRequest();
+        request.setWeekId("2025-W12");
+        request.setManualCalories(1700);
+        String body = objectMapper.writeValueAsString(request) + "\n"
+                + "{broken json}\n"
+                + objectMapper.writeValueAsString(request) + "\n";
+
+        MvcResult started = mockMvc.perform(
+                        post("/api/generate-plans/stream")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .content(body)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<String> lines = response.lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines.get(0)).path("plan").path("targetCalories").asInt()).isEqualTo(1700);
+        assertThat(objectMapper.readTree(lines.get(1)).path("error").asText()).isNotBlank();
+        assertThat(objectMapper.readTree(lines.get(2)).path("index").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Рецепты арендатора видны только ему и попадают в его планы поверх общего каталога")
+    void tenantRecipes_areIsolatedAndUsedInTenantPlans() throws Exception {
+        String body = """
+                {"title": "Боул партнёра", "calories": 600, "dietType": "PARTNER", "mealType": "LUNCH"}
+                """;
+        JsonNode created = objectMapper.readTree(mockMvc.perform(post("/api/recipes")
+                        .header("X-Tenant-Id", "brand-a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+        long id = created.path("id").asLong();
+
+        mockMvc.perform(get("/api/recipes/" + id).header("X-Tenant-Id", "brand-a"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/recipes/" + id).header("X-Tenant-Id", "brand-b"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/recipes/" + id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/recipes/1").header("X-Tenant-Id", "brand-a"))
+                .andExpect(status().isOk());
+
+        MenuRequest request = new MenuRequest();
+        request.setDiet("PARTNER");
+        request.setManualCalories(1800);
+        mockMvc.perform(post("/api/generate-plan")
+                        .header("X-Tenant-Id", "brand-a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plan['Понедельник'][1].id").value(id));
+
+        mockMvc.perform(delete("/api/recipes/" + id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/recipes/" + id).header("X-Tenant-Id", "brand-a"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("Импорт, пакетная генерация и сохранённые планы работают с каталогом арендатора из X-Tenant-Id")
+    void tenantHeader_appliesToImportBatchAndSavedPlans() throws Exception {
+        String body = """
+                {"title": "Поке бренда C", "calories": 650, "dietType": "BRAND_C", "mealType": "LUNCH"}
+                {"title": "Суп бренда C", "calories": 550, "dietType": "BRAND_C", "mealType": "LUNCH"}
+                """;
+        mockMvc.perform(post("/api/recipes/import")
+                        .header("X-Tenant-Id", "brand-c")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+        JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/recipes")
+                        .header("X-Tenant-Id", "brand-c")
+                        .param("dietType", "BRAND_C"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        List<Long> tenantIds = page.path("items").findValues("id").stream().map(JsonNode::asLong).toList();
+        mockMvc.perform(get("/api/recipes").param("dietType", "BRAND_C"))
+                .andExpect(jsonPath("$.items.length()").value(0));
+
+        MenuRequest request = new MenuRequest();
+        request.setDiet("BRAND_C");
+        request.setManualCalories(1800);
+        String batch = objectMapper.writeValueAsString(List.of(request));
+        JsonNode tenantBatch = objectMapper.readTree(mockMvc.perform(post("/api/generate-plans")
+                        .header("X-Tenant-Id", "brand-c")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(tenantIds).contains(tenantBatch.path(0).path("plan").path("plan").path("Понедельник").path(1)
+                .path("id").asLong());
+        JsonNode sharedBatch = objectMapper.readTree(mockMvc.perform(post("/api/generate-plans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(tenantIds).doesNotContain(sharedBatch.path(0).path("plan").path("plan").path("Понедельник").path(1)
+                .path("id").asLong());
 
+        JsonNode saved = objectMapper.readTree(mockMvc.perform(post("/api/plans")
+                        .header("X-Tenant-Id", "brand-c")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        long planId = saved.path("planId").asLong();
+        assertThat(tenantIds).contains(saved.path("plan").path("Понедельник").path(1).path("id").asLong());
+
+        // План виден только своему арендатору, а перегенерация берёт его каталог
+        mockMvc.perform(get("/api/plans/{id}", planId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/plans/{id}/days/{day}/meals/{slot}/regenerate", planId, 0, 1))
+                .andExpect(status().isNotFound());
+        JsonNode regenerated = objectMapper.readTree(mockMvc.perform(
+                        post("/api/plans/{id}/days/{day}/meals/{slot}/regenerate", planId, 0, 1)
+                                .header("X-Tenant-Id", "brand-c"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(tenantIds).contains(regenerated.path("plan").path("Понедельник").path(1).path("id").asLong());
+    }
+
+    @Test
+    @DisplayName("PUT /api/recipes/{id} отклоняет изменение по устаревшей версии: 409 по version, 412 по If-Match")
+    void updateRecipe_withStaleVersion_isRejected() throws Exception {
+        JsonNode created = objectMapper.readTree(mockMvc.perform(post("/api/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Рагу для правки", "calories": 500, "mealType": "DINNER"}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        long id = created.path("id").asLong();
+        long version = created.path("version").asLong();
+        String etag = mockMvc.perform(get("/api/recipes/" + id))
+                .andReturn().getResponse().getHeader("ETag");
+        String update = """
+                {"title": "Рагу, правка %s", "calories": 520, "mealType": "DINNER", "version": %d}
+                """;
+
+        mockMvc.perform(put("/api/recipes/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update.formatted("первая", version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 1));
+
+        // Второй клиент прочитал рецепт до первой правки
+        mockMvc.perform(put("/api/recipes/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update.formatted("вторая", version)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/recipes/" + id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Рагу, правка третья", "calories": 530, "mealType": "DINNER"}
+                                """))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/recipes/" + id))
+                .andExpect(jsonPath("$.title").value("Рагу, правка первая"));
+    }
+}
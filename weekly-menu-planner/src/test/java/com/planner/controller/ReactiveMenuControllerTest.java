@@ -0,0 +1,140 @@
+package com.planner.controller;
+
+import com.planner.dto.MenuRequest;
+import com.planner.service.MenuGeneratorService;
+import com.planner.service.PlanRequestCoalescer;
+import com.planner.service.RecipeCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"planner.coalescing.endpoints=" + PlanRequestCoalescer.POST_PLAN,
+                // Прогрев вызывает генератор в фоне и мешал бы подменять его ответ
+                "planner.prewarm.enabled=false"})
+@ActiveProfiles("reactive")
+class ReactiveMenuControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private MenuGeneratorService menuService;
+
+    @Test
+    @DisplayName("Профиль reactive: GET /api/generate-plan и страница рецептов отдаются WebFlux из снимка каталога")
+    void reactiveProfile_servesPlansAndRecipes() {
+        webTestClient.get().uri("/api/generate-plan?diet=ALL&calories=2100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noStore())
+                .expectBody()
+                .jsonPath("$.plan").exists()
+                .jsonPath("$.targetCalories").isEqualTo(2100);
+
+        webTestClient.post().uri("/api/generate-plan")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"weekId\":\"2025-W10\",\"manualCalories\":1800}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.targetCalories").isEqualTo(1800);
+
+        String etag = webTestClient.get().uri("/api/recipes?limit=5&mealType=LUNCH")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(5)
+                .jsonPath("$.items[0].mealType").isEqualTo("LUNCH")
+                .jsonPath("$.nextCursor").isNumber()
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(etag).isNotBlank();
+        webTestClient.get().uri("/api/recipes?limit=5&mealType=LUNCH")
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("Профиль reactive: схлопнутые POST /api/generate-plan ждут общий план, не занимая потоков планировщика")
+    void reactiveProfile_coalescedRequestsDoNotBlockScheduler() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (Integer.valueOf(1900).equals(invocation.<MenuRequest>getArgument(0).getManualCalories())) {
+                leaderStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return invocation.callRealMethod();
+        }).when(menuService).generateWeeklyMenu(any(MenuRequest.class), any(RecipeCatalog.class));
+
+        // Больше ждущих, чем потоков у параллельного планировщика: если бы каждый ждал лидера на своём потоке,
+        // до схлопывания дошёл бы не каждый — лидер держит один из них до конца теста
+        int followers = 2 * Schedulers.DEFAULT_POOL_SIZE + 1;
+        ExecutorService clients = Executors.newFixedThreadPool(followers + 1);
+        try {
+            CompletableFuture<Boolean> leader = CompletableFuture.supplyAsync(() -> postPlan(1900), clients);
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<Boolean>> coalesced = IntStream.range(0, followers)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> postPlan(1900), clients))
+                    .toList();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (coalescedCount() < followers && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(coalescedCount()).isEqualTo(followers);
+            assertThat(leader).isNotDone();
+            release.countDown();
+            assertThat(leader.get(10, TimeUnit.SECONDS)).isTrue();
+            for (CompletableFuture<Boolean> follower : coalesced) {
+                assertThat(follower.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+
+    private boolean postPlan(int calories) {
+        webTestClient.post().uri("/api/generate-plan")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"manualCalories\":" + calories + "}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.targetCalories").isEqualTo(calories);
+        return true;
+    }
+
+    private double coalescedCount() {
+        return meterRegistry.counter("planner.coalescing.requests",
+                "endpoint", PlanRequestCoalescer.POST_PLAN, "role", "coalesced").count();
+    }
+}
@@ -1,22 +1,35 @@
 package com.planner.repository;
 
+import com.planner.config.SecondLevelCacheConfig;
+import com.planner.dto.RecipeSummary;
 import com.planner.model.MealType;
 import com.planner.model.Recipe;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@Import(SecondLevelCacheConfig.class)
 class RecipeRepositoryTest {
 
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("findByMealType находит рецепты с заданным типом приёма пищи")
     void findByMealType_returnsResultsForExistingMealType() {
@@ -63,6 +76,55 @@ class RecipeRepositoryTest {
                     assertThat(r.getMealType()).isEqualTo(MealType.LUNCH);
                 });
     }
-}
 
+    @Test
+    @DisplayName("findSummaries листает отфильтрованные рецепты по курсору без пропусков и повторов")
+    void findSummaries_pagesByCursor() {
+        for (int i = 0; i < 5; i++) {
+            recipeRepository.save(Recipe.builder()
+                    .title("Test keyset lunch " + i)
+                    .dietType("KETO")
+                    .mealType(MealType.LUNCH)
+                    .calories(400 + i * 100)
+                    .ingredients("яйца, сыр")
+                    .build());
+        }
+
+        List<RecipeSummary> first = recipeRepository.findSummaries(0, null, "keto", MealType.LUNCH, null,
+                500, 800, Limit.of(2));
+        List<RecipeSummary> second = recipeRepository.findSummaries(first.get(1).getId(), null, "keto", MealType.LUNCH,
+                null, 500, 800, Limit.of(2));
+
+        assertThat(first).extracting(RecipeSummary::getCalories).containsExactly(500, 600);
+        assertThat(second).extracting(RecipeSummary::getCalories).containsExactly(700, 800);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Повторные поиски рецептов обслуживает кэш второго уровня, удаление сбрасывает закэшированный запрос")
+    void secondLevelCache_servesRepeatedLookupsAndIsInvalidatedOnDelete() {
+        // Без общей транзакции теста: каждый вызов репозитория — своя сессия, как у запросов к API
+        Recipe dinner = recipeRepository.save(Recipe.builder()
+                .title("Test cached dinner")
+                .dietType("L2CACHE")
+                .mealType(MealType.DINNER)
+                .calories(600)
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(recipeRepository.findById(dinner.getId())).isPresent();
+        assertThat(recipeRepository.findByDietTypeIgnoreCaseAndMealType("l2cache", MealType.DINNER)).hasSize(1);
+        assertThat(recipeRepository.findByDietTypeIgnoreCaseAndMealType("l2cache", MealType.DINNER)).hasSize(1);
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        // SQL ушёл только первый запрос; поиск по id и повтор запроса обошлись без БД
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
 
+        recipeRepository.deleteById(dinner.getId());
+
+        assertThat(recipeRepository.findByDietTypeIgnoreCaseAndMealType("l2cache", MealType.DINNER)).isEmpty();
+        assertThat(recipeRepository.findById(dinner.getId())).isEmpty();
+    }
+}
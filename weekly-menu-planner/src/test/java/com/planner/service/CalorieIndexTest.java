@@ -0,0 +1,70 @@
+package com.planner.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalorieIndexTest {
+
+    // Номер рецепта = позиция в массиве калорий
+    private static CalorieIndex index(int... calories) {
+        int[] ordinals = new int[calories.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i;
+        }
+        return CalorieIndex.of(ordinals, ordinal -> calories[ordinal]);
+    }
+
+    private static List<Integer> walk(CalorieIndex index, int target) {
+        List<Integer> visited = new ArrayList<>();
+        CalorieIndex.Cursor cursor = index.nearest(target);
+        while (cursor.hasNext()) {
+            visited.add(cursor.next());
+        }
+        return visited;
+    }
+
+    @Test
+    @DisplayName("Курсор выдаёт рецепты по возрастанию расстояния до калорийности слота")
+    void nearest_returnsClosestFirst() {
+        CalorieIndex index = index(700, 300, 520, 450, 900);
+
+        assertThat(walk(index, 500)).containsExactly(2, 3, 1, 0, 4);
+    }
+
+    @Test
+    @DisplayName("При равном расстоянии сначала идёт более лёгкое блюдо")
+    void nearest_prefersLighterOnTie() {
+        CalorieIndex index = index(600, 400, 500);
+
+        assertThat(walk(index, 500)).containsExactly(2, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Цель ниже минимума и выше максимума: обход идёт от края диапазона и выдаёт все рецепты")
+    void nearest_handlesTargetsOutsideRange() {
+        CalorieIndex index = index(300, 500, 400);
+
+        assertThat(walk(index, 100)).containsExactly(0, 2, 1);
+        assertThat(walk(index, 5000)).containsExactly(1, 2, 0);
+        assertThat(walk(CalorieIndex.EMPTY, 500)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Слоёный индекс сливает свой слой с общим в том же порядке близости")
+    void layered_mergesBothLayers() {
+        int[] calories = {300, 480, 650, 510, 900};
+        CalorieIndex base = CalorieIndex.of(new int[]{0, 1, 2}, ordinal -> calories[ordinal]);
+        CalorieIndex own = CalorieIndex.of(new int[]{3, 4}, ordinal -> calories[ordinal]);
+
+        CalorieIndex layered = CalorieIndex.layered(base, own);
+
+        assertThat(layered.size()).isEqualTo(5);
+        assertThat(walk(layered, 500)).containsExactly(3, 1, 2, 0, 4);
+        assertThat(layered.ordinals()).containsExactly(0, 1, 3, 2, 4);
+    }
+}
@@ -2,6 +2,10 @@ package com.planner.service;
 
 import com.planner.dto.MenuPlanResponse;
 import com.planner.dto.MenuRequest;
+import com.planner.model.Activity;
+import com.planner.model.Gender;
+import com.planner.model.Goal;
+import com.planner.model.MealType;
 import com.planner.repository.RecipeRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,15 @@ class MenuGeneratorServiceTest {
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private PlanPrewarmer planPrewarmer;
+
+    @Autowired
+    private PlanResultCache planCache;
+
+    @Autowired
+    private RecipeCatalogService catalogService;
+
     @Test
     @DisplayName("Генерация недельного меню возвращает план для 7 дней и использует рецепты из БД")
     void generateWeeklyMenu_basicRequest_returnsPlanForWholeWeek() {
@@ -63,6 +76,144 @@ class MenuGeneratorServiceTest {
 
         assertThat(containsExcluded).isFalse();
     }
-}
 
+    @Test
+    @DisplayName("Планы с weekId берутся из кэша, без weekId — генерируются заново")
+    void generateWeeklyMenu_cachesDeterministicPlans() {
+        MenuRequest first = new MenuRequest();
+        first.setWeekId("2025-W20");
+        first.setManualCalories(2100);
+        MenuRequest second = new MenuRequest();
+        second.setWeekId("2025-w20");
+        second.setManualCalories(2100);
+
+        MenuPlanResponse initial = menuGeneratorService.generateWeeklyMenu(first);
+        MenuPlanResponse repeated = menuGeneratorService.generateWeeklyMenu(second);
+
+        assertThat(repeated).isSameAs(initial);
+
+        // Запрос без weekId не читает и не пополняет кэш
+        long size = planCache.size();
+        long lookups = planCache.stats().requestCount();
+        menuGeneratorService.generateWeeklyMenu(new MenuRequest());
+        assertThat(planCache.size()).isEqualTo(size);
+        assertThat(planCache.stats().requestCount()).isEqualTo(lookups);
+    }
+
+    @Test
+    @DisplayName("Прогретые шаблоны недели отдаются без генерации и не пересчитываются повторно")
+    void prewarm_servesTemplatesForWeek() {
+        assertThat(planPrewarmer.prewarm("2025-W30")).isGreaterThan(0);
+        assertThat(planPrewarmer.prewarm("2025-W30")).isZero();
+
+        MenuRequest request = new MenuRequest();
+        request.setWeekId("2025-w30");
+        request.setMealsPerDay(4);
+        request.setManualCalories(1800);
+        long hits = planCache.templateHits();
+        MenuPlanResponse response = menuGeneratorService.generateWeeklyMenu(request);
+
+        assertThat(planCache.templateHits()).isEqualTo(hits + 1);
+        assertThat(response.getPlan().values()).allSatisfy(meals -> assertThat(meals).hasSize(4));
+
+        // Диета сравнивается без учёта регистра — "vegan" попадает в шаблон диеты VEGAN из каталога
+        MenuRequest vegan = new MenuRequest();
+        vegan.setWeekId("2025-W30");
+        vegan.setDiet("vegan");
+        vegan.setManualCalories(2000);
+        menuGeneratorService.generateWeeklyMenu(vegan);
+
+        assertThat(planCache.templateHits()).isEqualTo(hits + 2);
+    }
+
+    @Test
+    @DisplayName("Режим OPTIMIZE собирает полную неделю и считает белок и стоимость")
+    void generateWeeklyMenu_optimizeMode_returnsFullWeek() {
+        MenuRequest request = new MenuRequest();
+        request.setWeekId("2025-W14");
+        request.setManualCalories(2000);
+        request.setMode("OPTIMIZE");
+        request.setMinDailyProtein(60);
+        request.setWeeklyBudget(20000);
+        long cached = planCache.size();
+
+        MenuPlanResponse response = menuGeneratorService.generateWeeklyMenu(request);
+
+        // План OPTIMIZE зависит от лимита времени — в кэш он не попадает, как и не получает ETag
+        assertThat(planCache.size()).isEqualTo(cached);
+
+        assertThat(response.getPlan()).hasSize(7);
+        assertThat(response.getPlan().values()).allSatisfy(meals -> assertThat(meals).hasSize(3));
+        int protein = response.getPlan().values().stream()
+                .flatMap(java.util.Collection::stream)
+                .mapToInt(r -> r.getProtein() == null ? 0 : r.getProtein())
+                .sum();
+        assertThat(response.getWeeklyProtein()).isEqualTo(protein);
+        assertThat(response.getWeeklyCalories()).isGreaterThan(0);
+
+        // Белок и бюджет — мягкие ограничения: ответ сообщает, выполнены ли они в готовом плане
+        boolean proteinMet = response.getPlan().values().stream()
+                .allMatch(meals -> meals.stream().mapToInt(r -> r.getProtein() == null ? 0 : r.getProtein()).sum() >= 60);
+        assertThat(response.getProteinTargetMet()).isEqualTo(proteinMet);
+        assertThat(response.getBudgetMet()).isEqualTo(response.getWeeklyPrice() <= 20000);
+    }
+
+    @Test
+    @DisplayName("Лимит времени оптимизатора отсчитывается от начала генерации: с истёкшим сроком — стартовое решение")
+    void optimize_withExpiredDeadline_returnsInitialSolution() {
+        RecipeCatalog catalog = catalogService.current();
+        int[] lunches = catalog.candidatesByMealType(MealType.LUNCH).ordinals();
+        int[][][] pools = {{java.util.Arrays.copyOf(lunches, Math.min(4, lunches.length))}};
+        WeeklyPlanOptimizer optimizer = new WeeklyPlanOptimizer(java.time.Duration.ofSeconds(10));
+
+        long started = System.nanoTime();
+        int[][] solution = optimizer.optimize(catalog, pools, new int[]{700}, 700, 0, 0,
+                optimizer.deadline(started - java.time.Duration.ofSeconds(10).toNanos()), new java.util.Random(1));
+
+        assertThat(System.nanoTime() - started).isLessThan(java.time.Duration.ofSeconds(1).toNanos());
+        assertThat(solution[0][0]).isEqualTo(pools[0][0][0]);
+    }
+
+    @Test
+    @DisplayName("Калорийный профиль считается по таблицам перечислений и переиспользуется между запросами")
+    void calorieProfile_isComputedFromEnumsAndInterned() {
+        MenuRequest request = new MenuRequest();
+        request.setGender(Gender.from("male"));
+        request.setAge(40);
+        request.setHeight(180.0);
+        request.setWeight(80.0);
+        request.setActivity(Activity.from("very_active"));
+        request.setGoal(Goal.from("lose"));
+        request.setIncludeSnack(true);
+
+        CalorieProfile first = menuGeneratorService.calorieProfile(menuGeneratorService.normalize(request));
+        CalorieProfile second = menuGeneratorService.calorieProfile(menuGeneratorService.normalize(request));
+
+        // (10*80 + 6.25*180 - 5*40 + 5) * 1.725 * 0.85
+        assertThat(first.targetCalories()).isEqualTo(2537);
+        assertThat(first.pattern()).isEqualTo(MealPattern.FOUR);
+        assertThat(first.pattern().mealTypes())
+                .containsExactly(MealType.BREAKFAST, MealType.SNACK, MealType.LUNCH, MealType.DINNER);
+        assertThat(first.slotCalories()).containsExactly(677, 362, 894, 604);
+        assertThat(second).isSameAs(first);
+        assertThat(Activity.from("unknown")).isEqualTo(Activity.MODERATE);
+    }
 
+    @Test
+    @DisplayName("Неизвестная цель считается с множителем 1.0, но не даёт фиксированной нормы диеты REGULAR")
+    void calorieProfile_unknownGoal_skipsRegularMaintainShortcut() {
+        MenuRequest maintain = new MenuRequest();
+        maintain.setDiet("REGULAR");
+        maintain.setGoal(Goal.from("maintain"));
+        MenuRequest unknown = new MenuRequest();
+        unknown.setDiet("REGULAR");
+        unknown.setGoal(Goal.from("recomp"));
+
+        assertThat(menuGeneratorService.calorieProfile(menuGeneratorService.normalize(maintain)).targetCalories())
+                .isEqualTo(1500);
+        // (10*60 + 6.25*165 - 5*30 - 161) * 1.375 * 1.0 — значения профиля по умолчанию
+        assertThat(unknown.getGoal()).isEqualTo(Goal.UNKNOWN);
+        assertThat(menuGeneratorService.calorieProfile(menuGeneratorService.normalize(unknown)).targetCalories())
+                .isEqualTo(1815);
+    }
+}
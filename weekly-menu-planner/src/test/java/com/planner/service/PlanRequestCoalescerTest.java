@@ -0,0 +1,95 @@
+package com.planner.service;
+
+import com.planner.dto.MenuPlanResponse;
+import com.planner.dto.MenuRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlanRequestCoalescerTest {
+
+    /** Генератор, который держит каждую генерацию до открытия защёлки. */
+    private static final class BlockingGenerator extends MenuGeneratorService {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+
+        BlockingGenerator() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public MenuPlanResponse generateWeeklyMenu(MenuRequest request, RecipeCatalog catalog) {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return MenuPlanResponse.builder().targetCalories(request.getManualCalories()).build();
+        }
+    }
+
+    private static MenuRequest request(int calories) {
+        MenuRequest request = new MenuRequest();
+        request.setManualCalories(calories);
+        return request;
+    }
+
+    @Test
+    @DisplayName("Одинаковые одновременные запросы получают один план, разные профили считаются отдельно")
+    void generate_sharesInFlightComputation() throws Exception {
+        BlockingGenerator generator = new BlockingGenerator();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PlanRequestCoalescer coalescer = new PlanRequestCoalescer(generator, registry,
+                Set.of(PlanRequestCoalescer.GET_PLAN));
+        RecipeCatalog catalog = RecipeCatalog.of(1, List.of());
+
+        CompletableFuture<MenuPlanResponse> leader = CompletableFuture.supplyAsync(
+                () -> coalescer.generate(PlanRequestCoalescer.GET_PLAN, request(2000), catalog));
+        while (generator.calls.get() == 0) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<MenuPlanResponse> follower = CompletableFuture.supplyAsync(
+                () -> coalescer.generate(PlanRequestCoalescer.GET_PLAN, request(2000), catalog));
+        CompletableFuture<MenuPlanResponse> other = CompletableFuture.supplyAsync(
+                () -> coalescer.generate(PlanRequestCoalescer.GET_PLAN, request(1800), catalog));
+        while (registry.counter("planner.coalescing.requests",
+                "endpoint", PlanRequestCoalescer.GET_PLAN, "role", "coalesced").count() == 0
+                || generator.calls.get() < 2) {
+            Thread.onSpinWait();
+        }
+        generator.release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+        assertThat(other.get(5, TimeUnit.SECONDS).getTargetCalories()).isEqualTo(1800);
+        assertThat(generator.calls).hasValue(2);
+        assertThat(registry.get("planner.coalescing.ratio").gauge().value()).isEqualTo(1.0 / 3);
+        assertThat(registry.get("planner.coalescing.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("На невключённом эндпоинте каждый запрос генерирует свой план")
+    void generate_disabledEndpoint_callsGeneratorDirectly() {
+        BlockingGenerator generator = new BlockingGenerator();
+        generator.release.countDown();
+        PlanRequestCoalescer coalescer = new PlanRequestCoalescer(generator, new SimpleMeterRegistry(),
+                Set.of(PlanRequestCoalescer.GET_PLAN));
+        RecipeCatalog catalog = RecipeCatalog.of(1, List.of());
+
+        coalescer.generate(PlanRequestCoalescer.POST_PLAN, request(2000), catalog);
+        coalescer.generate(PlanRequestCoalescer.POST_PLAN, request(2000), catalog);
+
+        assertThat(coalescer.isEnabled(PlanRequestCoalescer.POST_PLAN)).isFalse();
+        assertThat(generator.calls).hasValue(2);
+    }
+}
@@ -0,0 +1,136 @@
+package com.planner.service;
+
+import com.planner.model.MealType;
+import com.planner.model.Recipe;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeCatalogTest {
+
+    private static Recipe recipe(long id, String diet, MealType mealType) {
+        return Recipe.builder()
+                .id(id)
+                .title("Recipe " + id)
+                .dietType(diet)
+                .mealType(mealType)
+                .calories(300)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Снимок индексирует рецепты по диете (без учёта регистра) и типу приёма пищи")
+    void indexesByDietAndMealType() {
+        RecipeCatalog catalog = RecipeCatalog.of(1, List.of(
+                recipe(1, "VEGAN", MealType.LUNCH),
+                recipe(2, "Regular", MealType.LUNCH),
+                recipe(3, "vegan", MealType.DINNER)
+        ));
+
+        assertThat(catalog.byDietAndMealType("veGan", MealType.LUNCH))
+                .extracting(Recipe::getId)
+                .containsExactly(1L);
+        assertThat(catalog.byMealType(MealType.LUNCH))
+                .extracting(Recipe::getId)
+                .containsExactly(1L, 2L);
+        assertThat(catalog.byDietAndMealType("KETO", MealType.LUNCH)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Список диет берётся из индекса снимка; слой арендатора видит и диеты общего снимка")
+    void diets_comeFromDietIndex() {
+        RecipeCatalog shared = RecipeCatalog.of(1, List.of(
+                recipe(1, "VEGAN", MealType.LUNCH),
+                recipe(2, "vegan", MealType.DINNER),
+                recipe(3, "Keto", MealType.LUNCH),
+                recipe(4, null, MealType.LUNCH)
+        ));
+
+        assertThat(shared.diets()).containsExactlyInAnyOrder("VEGAN", "KETO");
+        assertThat(shared.overlay(2, List.of(recipe(5, "paleo", MealType.LUNCH))).diets())
+                .containsExactlyInAnyOrder("VEGAN", "KETO", "PALEO");
+    }
+
+    @Test
+    @DisplayName("Изменение рецепта создаёт новый снимок с новой версией, старый не меняется")
+    void withRecipe_createsNewVersion() {
+        RecipeCatalog original = RecipeCatalog.of(1, List.of(recipe(1, "VEGAN", MealType.LUNCH)));
+
+        RecipeCatalog updated = original.withRecipe(2, recipe(1, "KETO", MealType.LUNCH));
+
+        assertThat(updated.getVersion()).isEqualTo(2);
+        assertThat(updated.byDietAndMealType("KETO", MealType.LUNCH)).hasSize(1);
+        assertThat(original.byDietAndMealType("VEGAN", MealType.LUNCH)).hasSize(1);
+        assertThat(updated.withoutRecipe(3, 1).size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Поиск по индексу ингредиентов совпадает с поиском подстроки")
+    void withAnyIngredient_keepsSubstringSemantics() {
+        Recipe mushrooms = recipe(1, "REGULAR", MealType.DINNER);
+        mushrooms.setIngredients("паста, Грибами, сливки");
+        Recipe salad = recipe(2, "VEGAN", MealType.LUNCH);
+        salad.setIngredients("нут, оливковое масло");
+        RecipeCatalog catalog = RecipeCatalog.of(1, List.of(mushrooms, salad));
+
+        assertThat(catalog.withAnyIngredient(List.of("гриб")).stream().boxed().toList()).containsExactly(0);
+        assertThat(catalog.withAnyIngredient(List.of("вое мас")).stream().boxed().toList()).containsExactly(1);
+        assertThat(catalog.withAnyIngredient(List.of("нут, оливк", "сливки")).cardinality()).isEqualTo(2);
+        assertThat(catalog.withAnyIngredient(List.of("паста нут")).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Колонки снимка хранят числа без null и кодируют кухню словарём без учёта регистра")
+    void columns_encodeCuisineAndNumbers() {
+        Recipe pasta = recipe(1, "REGULAR", MealType.DINNER);
+        pasta.setCuisine("Итальянская");
+        pasta.setProtein(null);
+        Recipe risotto = recipe(2, "VEGAN", null);
+        risotto.setCuisine("итальянская");
+        RecipeCatalog catalog = RecipeCatalog.of(1, List.of(pasta, risotto, recipe(3, "VEGAN", MealType.LUNCH)));
+        RecipeColumns columns = catalog.columns();
+
+        assertThat(columns.calories(0)).isEqualTo(300);
+        assertThat(columns.protein(0)).isZero();
+        assertThat(columns.cuisineCode(0)).isEqualTo(columns.cuisineCode(1))
+                .isEqualTo(columns.cuisineCodeOf("ИТАЛЬЯНСКАЯ"));
+        assertThat(columns.cuisineCode(2)).isEqualTo(RecipeColumns.NONE);
+        assertThat(columns.cuisineCodeOf("Японская")).isEqualTo(RecipeColumns.UNKNOWN);
+        assertThat(columns.fitsMealType(1, MealType.BREAKFAST)).isTrue();
+        assertThat(columns.fitsMealType(2, MealType.DINNER)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Слой арендатора добавляет рецепты поверх общего снимка, не меняя его и номера общих рецептов")
+    void overlay_mergesTenantRecipesWithSharedCatalog() {
+        Recipe sharedLunch = recipe(1, "VEGAN", MealType.LUNCH);
+        Recipe heavyLunch = recipe(3, "REGULAR", MealType.LUNCH);
+        heavyLunch.setCalories(500);
+        RecipeCatalog shared = RecipeCatalog.of(1, List.of(sharedLunch, heavyLunch));
+        Recipe tofu = recipe(2, "vegan", MealType.LUNCH);
+        tofu.setCalories(400);
+        tofu.setIngredients("тофу, рис");
+
+        RecipeCatalog tenant = shared.overlay(2, List.of(tofu, recipe(4, "KETO", MealType.DINNER)));
+
+        assertThat(shared.size()).isEqualTo(2);
+        assertThat(tenant.size()).isEqualTo(4);
+        assertThat(tenant.ordinalOf(3)).isEqualTo(shared.ordinalOf(3));
+        assertThat(tenant.owns(2)).isTrue();
+        assertThat(tenant.owns(1)).isFalse();
+        assertThat(tenant.byDietAndMealType("VEGAN", MealType.LUNCH)).extracting(Recipe::getId).containsExactly(1L, 2L);
+        assertThat(tenant.byDietAndMealType("KETO", MealType.DINNER)).extracting(Recipe::getId).containsExactly(4L);
+        assertThat(shared.byDietAndMealType("KETO", MealType.DINNER)).isEmpty();
+        assertThat(tenant.page(0, recipe -> true, 3)).extracting(Recipe::getId).containsExactly(1L, 2L, 3L);
+        assertThat(tenant.withAnyKeyword(List.of("тофу")).stream().boxed().toList())
+                .containsExactly(tenant.ordinalOf(2));
+
+        CalorieIndex.Cursor cursor = tenant.candidatesByMealType(MealType.LUNCH).nearest(450);
+        assertThat(List.of(cursor.next(), cursor.next(), cursor.next()))
+                .containsExactly(tenant.ordinalOf(2), tenant.ordinalOf(3), tenant.ordinalOf(1));
+        assertThat(cursor.hasNext()).isFalse();
+    }
+}
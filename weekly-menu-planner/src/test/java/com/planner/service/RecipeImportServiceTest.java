@@ -0,0 +1,78 @@
+package com.planner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planner.dto.RecipeImportReport;
+import com.planner.model.Recipe;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class RecipeImportServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecipeCatalogService catalogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private RecipeImportService importService(int batchSize) {
+        return new RecipeImportService(entityManager, transactionManager, catalogService, objectMapper, batchSize);
+    }
+
+    @Test
+    @DisplayName("Обрыв входа посреди импорта: записанные пачки попадают в снимок каталога")
+    void importNdjson_inputFailsMidway_refreshesCatalogWithCommittedBatches() {
+        String lines = """
+                {"title": "Каша до обрыва", "calories": 350, "mealType": "BREAKFAST"}
+                {"title": "Омлет до обрыва", "calories": 400, "mealType": "BREAKFAST"}
+                """;
+        InputStream broken = new SequenceInputStream(
+                new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Клиент закрыл соединение");
+                    }
+                });
+
+        assertThatThrownBy(() -> importService(1).importNdjson(broken, null)).isInstanceOf(IOException.class);
+
+        assertThat(catalogService.current().all().stream().map(Recipe::getTitle))
+                .contains("Каша до обрыва", "Омлет до обрыва");
+    }
+
+    @Test
+    @DisplayName("Строка null в NDJSON отчитывается как ошибка записи, импорт продолжается")
+    void importNdjson_nullLine_isReportedAsRowError() throws IOException {
+        String lines = """
+                null
+                {"title": "Блины после null", "calories": 450, "mealType": "BREAKFAST"}
+                """;
+
+        RecipeImportReport report = importService(500).importNdjson(
+                new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> assertThat(error.getLine()).isEqualTo(1));
+    }
+}
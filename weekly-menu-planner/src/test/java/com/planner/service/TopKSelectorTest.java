@@ -0,0 +1,51 @@
+package com.planner.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKSelectorTest {
+
+    @Test
+    @DisplayName("В начале буфера оказываются k кандидатов с наименьшей оценкой")
+    void selectSmallest_movesBestCandidatesToFront() {
+        int[] input = {40, 5, 90, 5, 70, 10, 0, 5, 100, 60};
+        TopKSelector selector = TopKSelector.forCurrentThread(input.length);
+        for (int i = 0; i < input.length; i++) {
+            selector.scores()[i] = input[i];
+            selector.ordinals()[i] = i;
+        }
+
+        selector.selectSmallest(input.length, 4, new Random(1));
+
+        int[] best = Arrays.copyOf(selector.scores(), 4);
+        Arrays.sort(best);
+        assertThat(best).containsExactly(0, 5, 5, 5);
+        for (int i = 0; i < input.length; i++) {
+            assertThat(input[selector.ordinals()[i]]).isEqualTo(selector.scores()[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Одинаковое зерно даёт одинаковую перестановку")
+    void selectSmallest_isDeterministicForSeed() {
+        int[] first = run(new Random(99));
+        int[] second = run(new Random(99));
+
+        assertThat(first).containsExactly(second);
+    }
+
+    private static int[] run(Random random) {
+        TopKSelector selector = TopKSelector.forCurrentThread(100);
+        for (int i = 0; i < 100; i++) {
+            selector.scores()[i] = (i * 37) % 11;
+            selector.ordinals()[i] = i;
+        }
+        selector.selectSmallest(100, 50, random);
+        return Arrays.copyOf(selector.ordinals(), 100);
+    }
+}
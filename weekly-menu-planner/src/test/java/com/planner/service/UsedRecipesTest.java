@@ -0,0 +1,35 @@
+package com.planner.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsedRecipesTest {
+
+    @Test
+    @DisplayName("Маска потока переиспользуется и при повторном получении пуста, в том числе после роста каталога")
+    void forCurrentThread_returnsClearedMask() {
+        UsedRecipes used = UsedRecipes.forCurrentThread(200);
+        used.add(0);
+        used.add(63);
+        used.add(64);
+        used.add(199);
+        used.add(199);
+
+        assertThat(used.contains(63)).isTrue();
+        assertThat(used.contains(64)).isTrue();
+        assertThat(used.contains(65)).isFalse();
+
+        UsedRecipes reused = UsedRecipes.forCurrentThread(100);
+        assertThat(reused).isSameAs(used);
+        for (int ordinal = 0; ordinal < 100; ordinal++) {
+            assertThat(reused.contains(ordinal)).isFalse();
+        }
+
+        reused.add(99);
+        UsedRecipes grown = UsedRecipes.forCurrentThread(10_000);
+        assertThat(grown.contains(99)).isFalse();
+        assertThat(grown.contains(9_999)).isFalse();
+    }
+}